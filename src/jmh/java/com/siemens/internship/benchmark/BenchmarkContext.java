@@ -0,0 +1,50 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.InternshipApplication;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.service.ItemBulkService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+// boots the application without a web server on its own in-memory H2 database, so every
+// benchmark trial starts from an empty, isolated table
+final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "logging.level.root=WARN",
+                "spring.main.banner-mode=off"));
+        all.addAll(List.of(properties));
+        return new SpringApplicationBuilder(InternshipApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(all.toArray(String[]::new))
+                .run();
+    }
+
+    // inserts count UNPROCESSED items through the batched bulk path
+    static void seed(ConfigurableApplicationContext context, int count) {
+        context.getBean(ItemBulkService.class).createAll(IntStream.range(0, count).mapToObj(BenchmarkContext::item).iterator());
+    }
+
+    static Item item(int i) {
+        return new Item(null, "Item " + i, "Description " + i, ItemStatus.UNPROCESSED, "user" + i + "@example.com");
+    }
+
+    static List<Item> items(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Item item = item(i);
+            item.setId((long) i + 1);
+            return item;
+        }).toList();
+    }
+}
@@ -0,0 +1,81 @@
+package com.siemens.internship.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemBinaryCodec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// bytes and CPU per list body of GET /api/items in each encoding the API serves: JSON and the compact
+// binary encoding, each plain and gzipped as server.compression does. Time is per list of listSize items,
+// the encoded size per item is reported next to it as the secondary metric bytesPerItem
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+    @Param({"100", "10000"})
+    private int listSize;
+
+    @Param({"json", "binary"})
+    private String encoding;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private List<Item> items;
+    private ByteArrayOutputStream sink;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        items = BenchmarkContext.items(listSize);
+        sink = new ByteArrayOutputStream(listSize * 128);
+    }
+
+    // secondary metric of encodeList; the size does not change between invocations, the last one is reported
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public double bytesPerItem;
+    }
+
+    @Benchmark
+    public int encodeList(Size size) throws IOException {
+        sink.reset();
+        OutputStream out = gzip ? new GZIPOutputStream(sink, 8192) : sink;
+        if (encoding.equals("json")) {
+            objectMapper.writeValue(out, items);
+        } else {
+            // with the buffer size the converter uses in front of the response stream
+            ItemBinaryCodec.Writer writer = new ItemBinaryCodec.Writer(out, 8192);
+            for (Item item : items) {
+                writer.write(item);
+            }
+            writer.flush();
+        }
+        out.close();
+        size.bytesPerItem = (double) sink.size() / listSize;
+        return sink.size();
+    }
+}
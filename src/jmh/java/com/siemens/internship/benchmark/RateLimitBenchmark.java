@@ -0,0 +1,61 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.config.RateLimitProperties;
+import com.siemens.internship.service.RateLimiter;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// cost the rate limiter adds to every API request, for one hot client shared by all threads and for
+// requests spread over many clients
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitBenchmark {
+    @Param({"1", "10000"})
+    private int clients;
+
+    private RateLimiter limiter;
+    private String[] clientIds;
+
+    @Setup
+    public void setup() {
+        RateLimitProperties properties = new RateLimitProperties();
+        // high enough that every request is admitted, the bucket update is what is measured
+        properties.getDefaults().setRequestsPerSecond(1e9);
+        properties.getDefaults().setBurst(1_000_000);
+        limiter = new RateLimiter();
+        ReflectionTestUtils.setField(limiter, "properties", properties);
+        // no sweep, every client keeps its bucket
+        ReflectionTestUtils.setField(limiter, "taskScheduler", Mockito.mock(TaskScheduler.class));
+        ReflectionTestUtils.invokeMethod(limiter, "init");
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "client-" + i;
+        }
+    }
+
+    @Benchmark
+    public RateLimiter.Decision tryAcquire() {
+        return limiter.tryAcquire(clientIds[ThreadLocalRandom.current().nextInt(clients)], "getAllItems");
+    }
+}
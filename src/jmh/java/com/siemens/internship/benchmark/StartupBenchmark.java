@@ -0,0 +1,96 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.InternshipApplication;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// time to first request: boots the application with its web server on a random port and measures until
+// GET /api/items has answered. "cold" starts on an empty database file, so the migrations run; "warm"
+// reopens a file that is already migrated, which is what a restarted node sees. Every measurement is a
+// single shot in a forked JVM so class loading and JIT warm-up are part of the number, as in production
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+    // "default" is ddl-auto=update with eager repositories, "prod" the migration-based lazy profile
+    @Param({"default", "prod"})
+    public String profile;
+
+    @Param({"cold", "warm"})
+    public String database;
+
+    private Path dir;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("startup-bench");
+        if (database.equals("warm")) {
+            // migrate the file without booting the application, so this JVM stays cold
+            Flyway.configure().dataSource(url(), "sa", "").load().migrate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (context != null) {
+            context.close();
+        }
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws IOException, InterruptedException {
+        context = start();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        HttpResponse<Void> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/items")).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("First request answered " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(InternshipApplication.class)
+                .profiles(profile)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + url(),
+                        "logging.level.root=WARN",
+                        "spring.main.banner-mode=off")
+                .run();
+    }
+
+    private String url() {
+        return "jdbc:h2:file:" + dir.resolve("items");
+    }
+}
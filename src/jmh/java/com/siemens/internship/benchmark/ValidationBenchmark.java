@@ -0,0 +1,95 @@
+package com.siemens.internship.benchmark;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.service.ItemValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// cost of the @Pattern constraints on Item: Hibernate Validator against the fast-path ItemValidator,
+// for a single item (POST) and for a bulk request of bulkSize items
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private ValidatorFactory factory;
+    private Validator validator;
+    private ItemValidator itemValidator;
+    private Item valid;
+    private Item invalid;
+    private List<Item> bulk;
+
+    @Param({"1000"})
+    public int bulkSize;
+
+    @Setup
+    public void setup() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+        itemValidator = new ItemValidator(validator);
+        valid = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+        invalid = new Item(1L, "", "Description?", ItemStatus.UNPROCESSED, "not-an-email");
+        bulk = BenchmarkContext.items(bulkSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Item>> validItem() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Item>> invalidItem() {
+        return validator.validate(invalid);
+    }
+
+    @Benchmark
+    public List<String> fastValidItem() {
+        return itemValidator.validateItem(valid);
+    }
+
+    @Benchmark
+    public List<String> fastInvalidItem() {
+        return itemValidator.validateItem(invalid);
+    }
+
+    @Benchmark
+    public void bulk(Blackhole blackhole) {
+        for (Item item : bulk) {
+            blackhole.consume(validator.validate(item));
+        }
+    }
+
+    @Benchmark
+    public void fastBulk(Blackhole blackhole) {
+        for (Item item : bulk) {
+            blackhole.consume(itemValidator.validateItem(item));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// limits applied by the REST API, bound from the "items.api" prefix
+@Data
+@ConfigurationProperties(prefix = "items.api")
+public class ApiProperties {
+    // page size used by GET /api/items when the client does not pass a limit
+    private int defaultPageSize = 100;
+
+    // upper bound for the limit parameter, larger values are clamped
+    private int maxPageSize = 1000;
+}
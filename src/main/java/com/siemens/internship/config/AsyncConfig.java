@@ -1,21 +1,139 @@
 package com.siemens.internship.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 
+@Slf4j
 @Configuration
 public class AsyncConfig {
+    @Autowired
+    private ExecutorProperties properties;
+
+    // executor gauges for the thread pools are bound by Spring Boot, rejections and the
+    // virtual-thread limiter are instrumented here
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // the processing executor never runs more DB-bound tasks than there are connections
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int dataSourcePoolSize;
+
+    @Autowired
+    private ConnectionPoolProperties poolProperties;
+
+    @Autowired
+    private ProcessingProperties processingProperties;
+
+    // runs @Async methods and job orchestration
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public AsyncTaskExecutor taskExecutor() {
+        if (useVirtualThreads()) {
+            return virtualThreadExecutor("ItemProcessor-");
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10);
-        executor.setMaxPoolSize(20);
-        executor.setQueueCapacity(500);
+        executor.setCorePoolSize(properties.getCorePoolSize());
+        executor.setMaxPoolSize(properties.getMaxPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
         executor.setThreadNamePrefix("ItemProcessor-");
+        executor.setRejectedExecutionHandler(countRejections("taskExecutor"));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(properties.getAwaitTerminationSeconds());
         executor.initialize();
         return executor;
     }
+
+    // runs the chunk workers of the batch engine; kept apart from taskExecutor so an orchestrating
+    // job waiting on its chunks can never occupy the threads those chunks need
+    @Bean(name = "processingExecutor")
+    public Executor processingExecutor() {
+        int limit = maxConcurrency();
+        if (useVirtualThreads()) {
+            ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(virtualThreadExecutor("ChunkWorker-"), limit);
+            Gauge.builder("executor.active", executor, ConcurrencyLimitedExecutor::activeCount)
+                    .baseUnit("threads")
+                    .tag("name", "processingExecutor")
+                    .register(meterRegistry);
+            Gauge.builder("executor.queued", executor, ConcurrencyLimitedExecutor::waitingCount)
+                    .baseUnit("tasks")
+                    .tag("name", "processingExecutor")
+                    .register(meterRegistry);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(limit);
+        executor.setMaxPoolSize(limit);
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("ChunkWorker-");
+        executor.setRejectedExecutionHandler(countRejections("processingExecutor"));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(properties.getAwaitTerminationSeconds());
+        executor.initialize();
+        return executor;
+    }
+
+    // serves HTTP requests on virtual threads as well when the virtual mode is selected
+    @Bean
+    @ConditionalOnJava(JavaVersion.TWENTY_ONE)
+    @ConditionalOnProperty(name = "items.executor.mode", havingValue = "virtual")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadRequestHandling() {
+        return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadTaskExecutor("http-"));
+    }
+
+    // a derived pool is sized from this limit, so the limit cannot be taken from the pool
+    private int maxConcurrency() {
+        if (properties.getMaxConcurrency() > 0 || poolProperties.isDerived()) {
+            return ConnectionPoolProperties.processingConnections(properties, processingProperties);
+        }
+        return dataSourcePoolSize;
+    }
+
+    private boolean useVirtualThreads() {
+        if (properties.getMode() != ExecutorProperties.Mode.VIRTUAL) {
+            return false;
+        }
+        if (Runtime.version().feature() < 21) {
+            log.warn("Virtual threads need Java 21 or newer, falling back to platform thread pools");
+            return false;
+        }
+        return true;
+    }
+
+    // counts rejected tasks, then rejects them like the default AbortPolicy
+    private RejectedExecutionHandler countRejections(String executorName) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .description("Tasks rejected because the pool and its queue were full")
+                .tag("name", executorName)
+                .register(meterRegistry);
+        RejectedExecutionHandler abort = new ThreadPoolExecutor.AbortPolicy();
+        return (task, pool) -> {
+            rejected.increment();
+            abort.rejectedExecution(task, pool);
+        };
+    }
+
+    // SimpleAsyncTaskExecutor starts one virtual thread per task and waits for them on close()
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(properties.getAwaitTerminationSeconds() * 1000L);
+        return executor;
+    }
 }
@@ -0,0 +1,20 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// sizing of the item cache, bound from the "items.cache" prefix
+@Data
+@ConfigurationProperties(prefix = "items.cache")
+public class CacheProperties {
+    // false turns the cache into a pass-through
+    private boolean enabled = true;
+
+    // maximum number of cached items, least recently/frequently used ones are evicted first
+    private long maxSize = 10_000;
+
+    // entries are reloaded from the database once they are older than this
+    private Duration ttl = Duration.ofMinutes(1);
+}
@@ -0,0 +1,17 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// item outbox and change feed settings, bound from the "items.changes" prefix
+@Data
+@ConfigurationProperties(prefix = "items.changes")
+public class ChangeFeedProperties {
+    // how long changes are kept; a consumer that falls further behind has to start over from a snapshot
+    private Duration retention = Duration.ofDays(7);
+
+    // how often changes past retention are deleted
+    private Duration cleanupInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,66 @@
+package com.siemens.internship.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// caps how many tasks run at once on top of an unbounded executor (e.g. one virtual thread per task);
+// the permit is taken inside the task, so submitters never block and waiting costs a parked virtual thread.
+// Every accepted task runs: one interrupted while it waits still waits for its permit and then runs with
+// its interrupt status set, so callers that release resources in their tasks always get to do so
+public class ConcurrencyLimitedExecutor implements Executor, AutoCloseable {
+    private final Executor delegate;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    // tasks started on the delegate but still waiting for a permit
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public ConcurrencyLimitedExecutor(Executor delegate, int maxConcurrency) {
+        this.delegate = delegate;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.permits = new Semaphore(this.maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(() -> {
+            waiting.incrementAndGet();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                permits.acquireUninterruptibly();
+                Thread.currentThread().interrupt();
+            } finally {
+                waiting.decrementAndGet();
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    // number of tasks that may still start right now
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    // number of tasks currently running
+    public int activeCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    // number of submitted tasks parked until a permit frees up
+    public int waitingCount() {
+        return waiting.get();
+    }
+
+    // lets Spring shut the delegate down together with this bean
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
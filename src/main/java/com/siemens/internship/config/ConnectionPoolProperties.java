@@ -0,0 +1,30 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// sizing of the datasource pool, bound from the "items.datasource.pool" prefix
+@Data
+@ConfigurationProperties(prefix = "items.datasource.pool")
+public class ConnectionPoolProperties {
+    // when true the Hikari maximum pool size follows from the executors (see DataSourceConfig) and
+    // overrides spring.datasource.hikari.maximum-pool-size, instead of the executors following the pool
+    private boolean derived = false;
+
+    // connections kept for HTTP request threads on top of those processing can hold
+    private int requestConnections = 10;
+
+    // the pool size derived from the executors: every chunk worker, the orchestrating thread of every
+    // job (checkpoints, leases, id pages) and requestConnections
+    public int poolSize(ExecutorProperties executor, ProcessingProperties processing) {
+        return processingConnections(executor, processing) + processing.getMaxConcurrentJobs() + requestConnections;
+    }
+
+    // chunk workers that can hold a connection at once: the executor limit when one is set, otherwise
+    // parallelism for each job that may run
+    public static int processingConnections(ExecutorProperties executor, ProcessingProperties processing) {
+        return executor.getMaxConcurrency() > 0
+                ? executor.getMaxConcurrency()
+                : Math.max(1, processing.getParallelism()) * Math.max(1, processing.getMaxConcurrentJobs());
+    }
+}
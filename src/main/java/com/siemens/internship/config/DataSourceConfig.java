@@ -0,0 +1,51 @@
+package com.siemens.internship.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+// with items.datasource.pool.derived the Hikari pool is sized for the connections the executors can
+// ask for at once, so parallel chunk workers never wait on the pool behind each other or behind requests
+@Configuration
+public class DataSourceConfig {
+    // static: a post-processor is created before the @ConfigurationProperties beans, so it binds them itself
+    @Bean
+    static BeanPostProcessor derivedPoolSize(Environment environment) {
+        return new DerivedPoolSize(Binder.get(environment));
+    }
+
+    // ordered, so it sees the pool before post-processors without an order could wrap it
+    @Slf4j
+    private static class DerivedPoolSize implements BeanPostProcessor, Ordered {
+        private final Binder binder;
+
+        DerivedPoolSize(Binder binder) {
+            this.binder = binder;
+        }
+
+        // after initialization, when spring.datasource.hikari has been bound to the pool
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource dataSource) {
+                ConnectionPoolProperties pool = binder.bindOrCreate("items.datasource.pool", ConnectionPoolProperties.class);
+                if (pool.isDerived()) {
+                    int size = pool.poolSize(binder.bindOrCreate("items.executor", ExecutorProperties.class),
+                            binder.bindOrCreate("items.processing", ProcessingProperties.class));
+                    log.info("Datasource pool sized to {} connections from the executor concurrency", size);
+                    dataSource.setMaximumPoolSize(size);
+                }
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// thread model and sizing of the executors, bound from the "items.executor" prefix
+@Data
+@ConfigurationProperties(prefix = "items.executor")
+public class ExecutorProperties {
+    public enum Mode {
+        // classic bounded platform thread pools
+        PLATFORM,
+        // one virtual thread per task (Java 21+), falls back to PLATFORM on older runtimes
+        VIRTUAL
+    }
+
+    private Mode mode = Mode.PLATFORM;
+
+    // sizing of the platform taskExecutor
+    private int corePoolSize = 10;
+    private int maxPoolSize = 20;
+    private int queueCapacity = 500;
+
+    // maximum number of tasks touching the database at once, 0 means "use the datasource pool size"
+    private int maxConcurrency = 0;
+
+    // how long shutdown waits for running tasks before giving up
+    private int awaitTerminationSeconds = 30;
+}
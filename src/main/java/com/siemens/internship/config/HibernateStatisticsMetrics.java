@@ -0,0 +1,55 @@
+package com.siemens.internship.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+// Hibernate's session factory statistics as meters, named like those of hibernate-micrometer; only
+// collected with spring.jpa.properties.hibernate.generate_statistics=true (the perf profile).
+// hibernate.statements against the http.server.requests count of a load test gives statements per request
+@Component
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.generate_statistics", havingValue = "true")
+public class HibernateStatisticsMetrics implements MeterBinder {
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        counter(registry, statistics, "hibernate.statements", "JDBC statements prepared and closed", Statistics::getPrepareStatementCount, "status", "prepared");
+        counter(registry, statistics, "hibernate.statements", "JDBC statements prepared and closed", Statistics::getCloseStatementCount, "status", "closed");
+        counter(registry, statistics, "hibernate.connections.obtained", "JDBC connections obtained", Statistics::getConnectCount);
+        counter(registry, statistics, "hibernate.flushes", "Session flushes", Statistics::getFlushCount);
+        counter(registry, statistics, "hibernate.transactions", "Transactions by result", Statistics::getSuccessfulTransactionCount, "result", "success");
+        counter(registry, statistics, "hibernate.transactions", "Transactions by result",
+                s -> s.getTransactionCount() - s.getSuccessfulTransactionCount(), "result", "failure");
+        counter(registry, statistics, "hibernate.optimistic.failures", "Optimistic lock failures", Statistics::getOptimisticFailureCount);
+        counter(registry, statistics, "hibernate.query.executions", "HQL and criteria queries executed", Statistics::getQueryExecutionCount);
+        counter(registry, statistics, "hibernate.entities.loads", "Entities loaded", Statistics::getEntityLoadCount);
+        counter(registry, statistics, "hibernate.entities.fetches", "Entities fetched lazily, each by a statement of its own", Statistics::getEntityFetchCount);
+        counter(registry, statistics, "hibernate.entities.inserts", "Entities inserted", Statistics::getEntityInsertCount);
+        counter(registry, statistics, "hibernate.entities.updates", "Entities updated", Statistics::getEntityUpdateCount);
+        counter(registry, statistics, "hibernate.entities.deletes", "Entities deleted", Statistics::getEntityDeleteCount);
+        TimeGauge.builder("hibernate.query.executions.max", statistics, TimeUnit.MILLISECONDS, Statistics::getQueryExecutionMaxTime)
+                .description("Slowest query executed")
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics, String name, String description,
+                                ToDoubleFunction<Statistics> count, String... tags) {
+        FunctionCounter.builder(name, statistics, count)
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -0,0 +1,103 @@
+package com.siemens.internship.config;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemBinaryCodec;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Item and Collection<Item> bodies in the ItemBinaryCodec format, chosen by Accept: application/x-item-binary.
+// Records are encoded into a small buffer that goes straight to the response stream, so a large list is sent
+// in chunks and never held in memory as a whole encoded body
+public class ItemBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final String MEDIA_TYPE_VALUE = "application/x-item-binary";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    public ItemBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Item.class.isAssignableFrom(clazz) || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isItems(type, true) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isItems(type == null ? clazz : type, false) && canWrite(mediaType);
+    }
+
+    // a single Item or a collection whose element type resolves to Item; reading needs a List it can create
+    private static boolean isItems(Type type, boolean read) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        if (Item.class.isAssignableFrom(resolved.toClass())) {
+            return true;
+        }
+        Class<?> container = resolved.toClass();
+        boolean collection = read ? container.isAssignableFrom(ArrayList.class) && Collection.class.isAssignableFrom(container)
+                : Collection.class.isAssignableFrom(container);
+        return collection && Item.class.isAssignableFrom(resolved.asCollection().getGeneric().toClass());
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        // flushed but not closed: the container owns the response stream
+        ItemBinaryCodec.Writer writer = new ItemBinaryCodec.Writer(outputMessage.getBody(), BUFFER_SIZE);
+        if (body instanceof Item item) {
+            writer.write(item);
+        } else {
+            for (Object item : (Collection<?>) body) {
+                writer.write((Item) item);
+            }
+        }
+        writer.flush();
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(ResolvableType.forType(type).toClass(), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        InputStream in = new BufferedInputStream(inputMessage.getBody(), BUFFER_SIZE);
+        try {
+            ItemBinaryCodec.readHeader(in);
+            if (Item.class.isAssignableFrom(clazz)) {
+                Item item = ItemBinaryCodec.read(in);
+                if (item == null) {
+                    throw new HttpMessageNotReadableException("Empty item body", inputMessage);
+                }
+                return item;
+            }
+            List<Item> items = new ArrayList<>();
+            for (Item item = ItemBinaryCodec.read(in); item != null; item = ItemBinaryCodec.read(in)) {
+                items.add(item);
+            }
+            return items;
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof HttpMessageNotReadableException notReadable) {
+                throw notReadable;
+            }
+            throw new HttpMessageNotReadableException("Malformed item body: " + e.getMessage(), e, inputMessage);
+        }
+    }
+}
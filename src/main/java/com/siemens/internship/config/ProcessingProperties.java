@@ -0,0 +1,116 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// tuning knobs for the batch processing engine, bound from the "items.processing" prefix
+@Data
+@ConfigurationProperties(prefix = "items.processing")
+public class ProcessingProperties {
+    // what the engine does with a chunk when every worker is busy
+    public enum OverloadPolicy {
+        // block the reader until a worker frees up
+        WAIT,
+        // write the chunk on the reader thread, which also slows down reading
+        CALLER_RUNS,
+        // skip the chunk, its rows stay UNPROCESSED for the next run
+        SHED
+    }
+
+    // number of rows read, updated and committed together in one transaction
+    private int chunkSize = 500;
+
+    // maximum number of chunks being written at the same time
+    private int parallelism = 4;
+
+    // upper bound of item ids held by chunks in flight, 0 means chunkSize * parallelism
+    private int maxInFlightItems = 0;
+
+    private OverloadPolicy overloadPolicy = OverloadPolicy.WAIT;
+
+    // processing jobs allowed to run at the same time, further starts are answered with 429
+    private int maxConcurrentJobs = 2;
+
+    // of those, jobs a single client may run at the same time, 0 means no per-client limit
+    private int maxConcurrentJobsPerClient = 1;
+
+    // Retry-After sent with 429/503 when no better estimate (the ETA of a running job) is available
+    private int retryAfterSeconds = 5;
+
+    // attempts per chunk when the bulk UPDATE hits a lock or version conflict
+    private int conflictRetries = 3;
+
+    // first backoff between conflict retries, doubled on every further attempt
+    private Duration conflictBackoff = Duration.ofMillis(50);
+
+    // how many finished processing jobs are kept around for polling
+    private int jobHistory = 100;
+
+    // pipeline settings per ItemProcessor name, plus "persist" for the batched write after the last stage
+    private Map<String, Stage> stages = new HashMap<>();
+
+    private Leasing leasing = new Leasing();
+
+    private Schedule schedule = new Schedule();
+
+    @Data
+    public static class Stage {
+        // chunks in the stage at once, within the parallelism of the run; a worker whose chunk finds the
+        // stage full waits for it. 0 means parallelism
+        private int concurrency = 0;
+    }
+
+    @Data
+    public static class Leasing {
+        // runs claim id ranges in the processing_lease table, so nodes sharing the database split the work
+        private boolean enabled = true;
+
+        // name of this node, unique among the nodes sharing the database; when blank, the host name plus an
+        // id drawn at startup, so instances sharing a host never collide. A node restarting under a configured
+        // name frees the leases of its previous incarnation at once, otherwise they expire after ttl
+        private String nodeId = "";
+
+        // ids per leased range: larger ranges mean fewer lease writes, smaller ones spread the work finer
+        private long rangeSize = 10_000;
+
+        // a lease not renewed for this long is taken over by other nodes
+        private Duration ttl = Duration.ofSeconds(30);
+
+        // how often held leases are renewed, well below ttl
+        private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+        // free rows of ranges not claimed for this long, and leases expired this long ago, are deleted;
+        // ranges are leased again from a fresh row by the next run that finds work in them
+        private Duration retention = Duration.ofHours(1);
+
+        // how often the lease table is cleaned up
+        private Duration cleanupInterval = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Schedule {
+        // processes new UNPROCESSED items in the background, in small batches; checked on every tick
+        private boolean enabled = false;
+
+        // pause after a tick that found no more work or had to back off at the lowest limit
+        private Duration interval = Duration.ofSeconds(1);
+
+        // bounds of the adaptive limit, the number of chunks a tick processes and writes in parallel.
+        // maxConcurrency 0 means parallelism
+        private int minConcurrency = 1;
+        private int maxConcurrency = 0;
+
+        // the limit is cut by this factor when a tick saw overload, and grows by one after a tick that did not
+        private double backoffRatio = 0.5;
+
+        // overload: chunk or API latency this many times above its long-run average...
+        private double latencyTolerance = 2.0;
+
+        // ...or more tasks than this waiting in taskExecutor or processingExecutor
+        private int maxQueuedTasks = 10;
+    }
+}
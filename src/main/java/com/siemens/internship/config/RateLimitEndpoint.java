@@ -0,0 +1,26 @@
+package com.siemens.internship.config;
+
+import com.siemens.internship.service.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// GET /actuator/ratelimits lists the limits in force. Read-only over HTTP: the limits are changed through
+// the JMX operations of RateLimitJmxExtension, which clients of the web port cannot reach
+@Component
+@Endpoint(id = "ratelimits")
+public class RateLimitEndpoint {
+    public record Limits(RateLimiter.Limit defaults, Map<String, RateLimiter.Limit> endpoints) {
+    }
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @ReadOperation
+    public Limits limits() {
+        return new Limits(rateLimiter.getDefaults(), rateLimiter.getEndpoints());
+    }
+}
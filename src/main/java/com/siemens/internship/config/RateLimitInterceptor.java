@@ -0,0 +1,49 @@
+package com.siemens.internship.config;
+
+import com.siemens.internship.exception.TooManyRequestsException;
+import com.siemens.internship.service.RateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// admits a request to the item API through the rate limiter of its client and endpoint, the endpoint
+// being the handler method's name. Every limited response carries the RateLimit-Limit/-Remaining/-Reset
+// headers; a rejected request ends here with 429 and Retry-After, before any work is done for it
+public class RateLimitInterceptor implements HandlerInterceptor {
+    // request attribute holding the client identity, for handlers that apply per-client quotas
+    public static final String CLIENT_ATTRIBUTE = "com.siemens.internship.config.RateLimitInterceptor.client";
+
+    private final RateLimiter rateLimiter;
+    private final String clientHeader;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter, String clientHeader) {
+        this.rateLimiter = rateLimiter;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        String client = clientOf(request);
+        request.setAttribute(CLIENT_ATTRIBUTE, client);
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(client, method.getMethod().getName());
+        if (decision.limit() > 0) {
+            response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+            response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+            response.setHeader("RateLimit-Reset", String.valueOf(decision.resetSeconds()));
+        }
+        if (!decision.allowed()) {
+            throw new TooManyRequestsException("Rate limit of " + method.getMethod().getName() + " exceeded, retry later",
+                    decision.resetSeconds());
+        }
+        return true;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = clientHeader == null || clientHeader.isBlank() ? null : request.getHeader(clientHeader);
+        return client == null || client.isBlank() ? request.getRemoteAddr() : client;
+    }
+}
@@ -0,0 +1,33 @@
+package com.siemens.internship.config;
+
+import com.siemens.internship.service.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.EndpointJmxExtension;
+import org.springframework.stereotype.Component;
+
+// the write operations of the ratelimits endpoint, on its MBean only: changing the limits without a
+// restart is an operator's job, and the web port is open to the clients being limited
+@Component
+@EndpointJmxExtension(endpoint = RateLimitEndpoint.class)
+public class RateLimitJmxExtension {
+    @Autowired
+    private RateLimitEndpoint endpoint;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    // endpoint is the name of an ItemController method, e.g. getAllItems
+    @WriteOperation
+    public RateLimitEndpoint.Limits setLimit(String endpoint, double requestsPerSecond, int burst) {
+        rateLimiter.setLimit(endpoint, new RateLimiter.Limit(requestsPerSecond, burst));
+        return this.endpoint.limits();
+    }
+
+    // the limit of the endpoints without one of their own
+    @WriteOperation
+    public RateLimitEndpoint.Limits setDefaultLimit(double requestsPerSecond, int burst) {
+        rateLimiter.setDefaults(new RateLimiter.Limit(requestsPerSecond, burst));
+        return endpoint.limits();
+    }
+}
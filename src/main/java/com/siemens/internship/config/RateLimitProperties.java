@@ -0,0 +1,44 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// per-client request rate limits of the REST API, bound from the "items.rate-limit" prefix; the limits
+// are the startup values, the JMX operations of the ratelimits actuator endpoint change them at runtime
+@Data
+@ConfigurationProperties(prefix = "items.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    // request header naming the client, e.g. X-Client-Id. Blank by default, so clients are told apart by
+    // remote address: a client free to set the header could send a fresh name with every request and
+    // never run out of tokens. Only set it behind a trusted proxy that overwrites the header on every
+    // request; requests without it still fall back to the remote address
+    private String clientHeader = "";
+
+    // buckets kept at a time (one per client and endpoint); further clients share one bucket per
+    // endpoint until the sweep has dropped the buckets of idle clients
+    private int maxClients = 100_000;
+
+    // how often buckets that have filled up again, those of idle clients, are dropped
+    private Duration sweepInterval = Duration.ofMinutes(1);
+
+    // limit of the endpoints that have none of their own
+    private Limit defaults = new Limit();
+
+    // limits per endpoint, keyed by the name of the ItemController method, e.g. getAllItems or processItems
+    private Map<String, Limit> endpoints = new HashMap<>();
+
+    @Data
+    public static class Limit {
+        // sustained rate the bucket refills at, 0 means unlimited
+        private double requestsPerSecond = 50;
+
+        // bucket size: requests a client may send at once after being idle
+        private int burst = 100;
+    }
+}
@@ -0,0 +1,21 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// item search settings, bound from the "items.search" prefix
+@Data
+@ConfigurationProperties(prefix = "items.search")
+public class SearchProperties {
+    // number of name suggestions returned when the client does not pass a limit
+    private int defaultSuggestions = 10;
+
+    private NameIndex nameIndex = new NameIndex();
+
+    @Data
+    public static class NameIndex {
+        // keeps every (name, id) in memory for type-ahead; loaded at startup, so it costs a scan of all
+        // items there and roughly 100 bytes of heap per item. Off, suggestions come from the store
+        private boolean enabled = false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.siemens.internship.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+// storage backend selection, bound from the "items.store" prefix
+@Data
+@ConfigurationProperties(prefix = "items.store")
+public class StoreProperties {
+    public enum Type {
+        // JPA on the configured datasource
+        JPA,
+        // lock-striped primitive maps on the heap, lost on restart
+        MEMORY,
+        // fixed-size records in a memory-mapped file, survives restarts
+        OFFHEAP
+    }
+
+    private Type type = Type.JPA;
+
+    // lock stripes of the memory and offheap stores, rounded up to a power of two
+    private int stripes = 64;
+
+    private OffHeap offheap = new OffHeap();
+
+    @Data
+    public static class OffHeap {
+        // the store file, created on first start and reopened as is afterwards
+        private String path = "data/items.store";
+
+        // the file is mapped in segments of this size as it grows
+        private DataSize segmentSize = DataSize.ofMegabytes(256);
+
+        // how often written records are forced to disk; 0 forces every write before it returns
+        private Duration syncInterval = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,74 @@
+package com.siemens.internship.config;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.service.RateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties({ApiProperties.class, SearchProperties.class})
+public class WebConfig implements WebMvcConfigurer {
+    // resolved lazily so web-layer slices that do not load AsyncConfig still start
+    @Autowired
+    @Qualifier("taskExecutor")
+    private ObjectProvider<AsyncTaskExecutor> taskExecutor;
+
+    // absent in web-layer slices, which then run without rate limits
+    @Autowired
+    private ObjectProvider<RateLimiter> rateLimiter;
+
+    @Autowired
+    private ObjectProvider<RateLimitProperties> rateLimitProperties;
+
+    // streaming responses can legitimately run for a long time on large tables
+    @Value("${items.api.stream-timeout-ms:600000}")
+    private long streamTimeoutMs;
+
+    // StreamingResponseBody writers run on the managed taskExecutor instead of a thread per request
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        taskExecutor.ifAvailable(configurer::setTaskExecutor);
+        configurer.setDefaultTimeout(streamTimeoutMs);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        rateLimiter.ifAvailable(limiter -> registry.addInterceptor(
+                new RateLimitInterceptor(limiter, rateLimitProperties.getObject().getClientHeader())).addPathPatterns("/api/items/**"));
+    }
+
+    // Item is written through the ItemField.FILTER filter, which passes every property unless
+    // ItemFieldsAdvice narrows it to the requested fields; as a mix-in so other ObjectMappers are unaffected
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer itemFieldsFilter() {
+        return builder -> builder.mixIn(Item.class, ItemFieldsFilter.class)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    @JsonFilter(ItemField.FILTER)
+    private interface ItemFieldsFilter {
+    }
+
+    // appended after Jackson, so JSON stays the default and the binary encoding is only used when asked for
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ItemBinaryHttpMessageConverter());
+    }
+}
@@ -1,32 +1,195 @@
 package com.siemens.internship.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.siemens.internship.config.ApiProperties;
+import com.siemens.internship.config.RateLimitInterceptor;
+import com.siemens.internship.config.SearchProperties;
+import com.siemens.internship.exception.BadRequestException;
 import com.siemens.internship.exception.NotFoundException;
+import com.siemens.internship.exception.PreconditionFailedException;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemQuery;
+import com.siemens.internship.service.ItemBulkService;
+import com.siemens.internship.service.ItemCache;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemValidator;
+import com.siemens.internship.service.NamePrefixIndex;
+import com.siemens.internship.service.ProcessingJob;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/items")
 @Validated  // Enables method-level validation
 public class ItemController {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String MERGE_PATCH = "application/merge-patch+json";
 
     @Autowired
     private ItemService itemService;
 
+    @Autowired
+    private ItemBulkService itemBulkService;
+
+    @Autowired
+    private ApiProperties apiProperties;
+
+    @Autowired
+    private SearchProperties searchProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ItemValidator itemValidator;
+
+    // @Valid Item bodies go through the fast-path validator instead of the generic bean validator
+    @InitBinder
+    void initBinder(WebDataBinder binder) {
+        if (binder.getTarget() instanceof Item) {
+            binder.setValidator(itemValidator);
+        }
+    }
+
+    // cursor pagination: returns up to limit items with an id greater than after, ordered by id;
+    // when the page is full a Link header with rel="next" points to the following page.
+    // fields=id,status (any of id, name, description, status, email, version) reads and returns only those
     @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        return new ResponseEntity<>(itemService.findAll(), HttpStatus.OK);
+    public ResponseEntity<List<Item>> getAllItems(@RequestParam(required = false) @Positive Integer limit,
+                                                  @RequestParam(defaultValue = "0") @PositiveOrZero Long after,
+                                                  @RequestParam(required = false) String fields) {
+        int pageSize = Math.min(limit == null ? apiProperties.getDefaultPageSize() : limit, apiProperties.getMaxPageSize());
+        Set<ItemField> selected = fields(fields);
+        List<Item> items = selected == null ? itemService.findPage(after, pageSize) : itemService.findPage(after, pageSize, selected);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (items.size() == pageSize) {
+            long nextCursor = items.get(items.size() - 1).getId();
+            headers.add(HttpHeaders.LINK, "</api/items?limit=" + pageSize + "&after=" + nextCursor + fieldsParam(selected) + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(items, headers, HttpStatus.OK);
+    }
+
+    // streams every item after the cursor as newline-delimited JSON without building the list in memory
+    @GetMapping(produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllItems(@RequestParam(defaultValue = "0") @PositiveOrZero Long after) {
+        StreamingResponseBody body = out -> {
+            // one document per item on the shared response stream: keep it open and let the container buffer flushes
+            ObjectWriter writer = objectMapper.writerFor(Item.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            itemService.streamAll(after, item -> {
+                try {
+                    writer.writeValue(out, item);
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    // filtered search with keyset paging: every given filter must match; email is exact, emailDomain the
+    // part after the '@' (case-insensitive), namePrefix a case-sensitive prefix of the name. sort is id
+    // (default) or name; a full page carries a Link rel="next" with the cursor of its last item, which
+    // is after=<id> and, sorted by name, afterName=<name> as well. fields selects the returned fields as for GET /api/items
+    @GetMapping("/search")
+    public ResponseEntity<List<Item>> searchItems(@RequestParam(required = false) ItemStatus status,
+                                                  @RequestParam(required = false) String email,
+                                                  @RequestParam(required = false) String emailDomain,
+                                                  @RequestParam(required = false) String namePrefix,
+                                                  @RequestParam(defaultValue = "id") String sort,
+                                                  @RequestParam(required = false) @Positive Integer limit,
+                                                  @RequestParam(defaultValue = "0") @PositiveOrZero Long after,
+                                                  @RequestParam(required = false) String afterName,
+                                                  @RequestParam(required = false) String fields) {
+        ItemQuery.Order order = switch (sort.toLowerCase(Locale.ROOT)) {
+            case "id" -> ItemQuery.Order.ID;
+            case "name" -> ItemQuery.Order.NAME;
+            default -> throw new BadRequestException("sort must be id or name, got: " + sort);
+        };
+        int pageSize = Math.min(limit == null ? apiProperties.getDefaultPageSize() : limit, apiProperties.getMaxPageSize());
+        String domain = emailDomain == null ? null : emailDomain.toLowerCase(Locale.ROOT);
+        ItemQuery query = new ItemQuery(status, email, domain, namePrefix, order,
+                order == ItemQuery.Order.NAME ? afterName : null, after, pageSize);
+        Set<ItemField> selected = fields(fields);
+        List<Item> items = selected == null ? itemService.search(query) : itemService.search(query, selected);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (items.size() == pageSize) {
+            Item last = items.get(items.size() - 1);
+            String next = UriComponentsBuilder.fromPath("/api/items/search")
+                    .queryParamIfPresent("status", Optional.ofNullable(status))
+                    .queryParamIfPresent("email", Optional.ofNullable(email))
+                    .queryParamIfPresent("emailDomain", Optional.ofNullable(domain))
+                    .queryParamIfPresent("namePrefix", Optional.ofNullable(namePrefix))
+                    .queryParam("sort", order.name().toLowerCase(Locale.ROOT))
+                    .queryParam("limit", pageSize)
+                    .queryParam("after", last.getId())
+                    .queryParamIfPresent("afterName", Optional.ofNullable(order == ItemQuery.Order.NAME ? last.getName() : null))
+                    .queryParamIfPresent("fields", Optional.ofNullable(selected).map(ItemController::properties))
+                    .encode()
+                    .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return new ResponseEntity<>(items, headers, HttpStatus.OK);
+    }
+
+    // type-ahead: ids and names of the items whose name starts with prefix, ordered by name
+    @GetMapping("/names")
+    public ResponseEntity<List<NamePrefixIndex.ItemName>> suggestNames(@RequestParam @NotBlank String prefix,
+                                                                       @RequestParam(required = false) @Positive Integer limit) {
+        int size = Math.min(limit == null ? searchProperties.getDefaultSuggestions() : limit, apiProperties.getMaxPageSize());
+        return new ResponseEntity<>(itemService.suggestNames(prefix, size), HttpStatus.OK);
+    }
+
+    // change feed: up to limit creations, updates, deletions and processing transitions recorded after the
+    // cursor since, oldest first. The Link rel="next" is always present and carries the cursor to poll
+    // with next, the seq of the last change returned (or since again when there was none)
+    @GetMapping("/changes")
+    public ResponseEntity<List<ItemChange>> getChanges(@RequestParam(defaultValue = "0") @PositiveOrZero Long since,
+                                                       @RequestParam(required = false) @Positive Integer limit) {
+        int pageSize = Math.min(limit == null ? apiProperties.getDefaultPageSize() : limit, apiProperties.getMaxPageSize());
+        List<ItemChange> changes = itemService.changesSince(since, pageSize);
+
+        long nextCursor = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, "</api/items/changes?limit=" + pageSize + "&since=" + nextCursor + ">; rel=\"next\"");
+        return new ResponseEntity<>(changes, headers, HttpStatus.OK);
     }
 
     @PostMapping
@@ -35,24 +198,45 @@ public class ItemController {
         return new ResponseEntity<>(itemService.save(item), HttpStatus.CREATED);
     }
 
+    // fields selects the returned fields as for GET /api/items, the version is read anyway for the ETag
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getItemById(@PathVariable  @Positive Long id) {
+    public ResponseEntity<Item> getItemById(@PathVariable  @Positive Long id,
+                                            @RequestParam(required = false) String fields,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         // should return 200 if found, 404 if not found
-        return itemService.findById(id)
-                .map(item -> new ResponseEntity<>(item, HttpStatus.OK))
+        Set<ItemField> selected = fields(fields);
+        if (selected != null) {
+            selected = EnumSet.copyOf(selected);
+            selected.add(ItemField.VERSION);
+        }
+        Item item = (selected == null ? itemService.findById(id) : itemService.findById(id, selected))
                 .orElseThrow(() -> new NotFoundException("Item not found with id: " + id));
         // throwing NotFoundException will return 404
+
+        // the version is the ETag, a client holding the current one gets 304 without a body
+        String etag = etag(item.getVersion());
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(item);
     }
 
+    // should return 200 if found and updated, 400 if validation fails, 404 if not found, 412 if If-Match does not
+    // match the current version. The body is validated here like a POST, the store writes it with a plain UPDATE
     @PutMapping("/{id}")
-    public ResponseEntity<Item> updateItem(@PathVariable Long id, @RequestBody Item item) {
-        Optional<Item> existingItem = itemService.findById(id);
-        if (existingItem.isEmpty()) {
-            throw new NotFoundException("Item not found with id: " + id);
-        }
-        item.setId(id);
-        // should return 200 if found and updated, 404 if not found
-        return new ResponseEntity<>(itemService.save(item), HttpStatus.OK);
+    public ResponseEntity<Item> updateItem(@PathVariable Long id, @RequestBody @Valid Item item,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Item updated = itemService.update(id, item, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(updated.getVersion())).body(updated);
+    }
+
+    // JSON Merge Patch: only the fields in the body are validated and written, null clears a field;
+    // 200 with the new ETag, 400 for invalid or read-only fields, 404 if not found, 412 on a stale If-Match
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Item> patchItem(@PathVariable @Positive Long id, @RequestBody Map<String, Object> patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Item patched = itemService.patch(id, patch, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(etag(patched.getVersion())).body(patched);
     }
 
     @DeleteMapping("/{id}")
@@ -62,16 +246,141 @@ public class ItemController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
-    @GetMapping("/process")
-    public ResponseEntity<List<Item>> processItems() {
+    // bulk endpoints: the body is a JSON array or an NDJSON stream, read element by element and written
+    // in JDBC batches; the response holds one result per input row, invalid rows do not stop the others.
+    // A body that is malformed partway is answered with 400 and the results of the rows before it, which
+    // have been written, followed by a MALFORMED result at the element where reading failed
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<List<ItemBulkService.RowResult>> createItems(InputStream body) throws IOException {
+        return bulkResponse(itemBulkService.createAll(readValues(body, Item.class)));
+    }
+
+    @PutMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<List<ItemBulkService.RowResult>> updateItems(InputStream body) throws IOException {
+        return bulkResponse(itemBulkService.updateAll(readValues(body, Item.class)));
+    }
+
+    // body is an array (or NDJSON stream) of ids
+    @DeleteMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public ResponseEntity<List<ItemBulkService.RowResult>> deleteItems(InputStream body) throws IOException {
+        return bulkResponse(itemBulkService.deleteAll(readValues(body, Long.class)));
+    }
+
+    private static ResponseEntity<List<ItemBulkService.RowResult>> bulkResponse(List<ItemBulkService.RowResult> results) {
+        return new ResponseEntity<>(results, ItemBulkService.isMalformed(results) ? HttpStatus.BAD_REQUEST : HttpStatus.OK);
+    }
+
+    // moves many items to one status in a few set-based UPDATEs, e.g. {"ids":[1,2,3],"from":"UNPROCESSED","to":"PROCESSED"}
+    @PatchMapping("/bulk/status")
+    public ResponseEntity<ItemBulkService.TransitionResult> transitionStatus(@RequestBody ItemBulkService.StatusTransition transition) {
+        return new ResponseEntity<>(itemBulkService.transitionStatus(transition), HttpStatus.OK);
+    }
+
+    // hit/miss/eviction counters of the item cache
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ItemCache.Stats> getCacheStats() {
+        return new ResponseEntity<>(itemService.cacheStats(), HttpStatus.OK);
+    }
+
+    // the parsed fields parameter, null when it is absent
+    private static Set<ItemField> fields(String fields) {
+        if (fields == null) {
+            return null;
+        }
+        try {
+            return ItemField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage(), e);
+        }
+    }
+
+    private static String fieldsParam(Set<ItemField> fields) {
+        return fields == null ? "" : "&fields=" + properties(fields);
+    }
+
+    private static String properties(Set<ItemField> fields) {
+        return fields.stream().map(ItemField::property).collect(Collectors.joining(","));
+    }
+
+    private static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-Match value to the expected version: absent or * means no precondition, otherwise a single (weak or strong) ETag
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
         try {
-            // Wait for async processing to complete and get the result
-            List<Item> processedItems = itemService.processItemsAsync().get(); // blocks thread
-            return new ResponseEntity<>(processedItems, HttpStatus.OK);
-        }catch (InterruptedException | ExecutionException e) {
-            // Log error and return a 500 Internal Server Error
-            System.err.println("Failed to process items: " + e.getMessage());
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match must carry a single item ETag, got: " + ifMatch);
         }
     }
+
+    // lazily parses a root-level JSON array or a sequence of whitespace separated documents;
+    // malformed input surfaces as a BadRequestException at the element where parsing failed
+    private <T> Iterator<T> readValues(InputStream body, Class<T> type) throws IOException {
+        MappingIterator<T> values = objectMapper.readerFor(type).readValues(body);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return values.hasNext();
+                } catch (RuntimeException e) {
+                    throw new BadRequestException("Malformed bulk body: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public T next() {
+                try {
+                    return values.next();
+                } catch (RuntimeException e) {
+                    throw new BadRequestException("Malformed bulk body: " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    // starts a processing job and returns 202 right away, the job is polled through its Location
+    @PostMapping("/process")
+    public ResponseEntity<ProcessingJob.Snapshot> processItems(
+            @RequestAttribute(name = RateLimitInterceptor.CLIENT_ATTRIBUTE, required = false) String client) {
+        ProcessingJob job = itemService.startProcessingJob(client);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/items/process/" + job.getId()))
+                .body(job.snapshot());
+    }
+
+    // starts a job that retries the items earlier runs failed or shed, polled like any other job
+    @PostMapping("/process/retry")
+    public ResponseEntity<ProcessingJob.Snapshot> retryFailedItems(
+            @RequestAttribute(name = RateLimitInterceptor.CLIENT_ATTRIBUTE, required = false) String client) {
+        ProcessingJob job = itemService.startRetryJob(client);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/items/process/" + job.getId()))
+                .body(job.snapshot());
+    }
+
+    // live counters of a processing job: 200 if known, 404 otherwise
+    @GetMapping("/process/{jobId}")
+    public ResponseEntity<ProcessingJob.Snapshot> getProcessingJob(@PathVariable String jobId) {
+        return itemService.findJob(jobId)
+                .map(job -> new ResponseEntity<>(job.snapshot(), HttpStatus.OK))
+                .orElseThrow(() -> new NotFoundException("Processing job not found with id: " + jobId));
+    }
+
+    // requests cancellation, chunks already being written still commit
+    @PostMapping("/process/{jobId}/cancel")
+    public ResponseEntity<ProcessingJob.Snapshot> cancelProcessingJob(@PathVariable String jobId) {
+        return itemService.cancelJob(jobId)
+                .map(job -> new ResponseEntity<>(job.snapshot(), HttpStatus.OK))
+                .orElseThrow(() -> new NotFoundException("Processing job not found with id: " + jobId));
+    }
 }
@@ -1,13 +1,27 @@
 package com.siemens.internship.controlleradvice;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.siemens.internship.exception.BadRequestException;
+import com.siemens.internship.exception.InvalidItemException;
 import com.siemens.internship.exception.NotFoundException;
+import com.siemens.internship.exception.PreconditionFailedException;
+import com.siemens.internship.exception.ServiceUnavailableException;
+import com.siemens.internship.exception.TooManyRequestsException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @RestControllerAdvice
@@ -26,6 +40,62 @@ public class GlobalExceptionHandler {
                 .map(it -> it.getField() + " " + it.getDefaultMessage());
     }
 
+    // same body as the two handlers above, for errors of the fast-path ItemValidator
+    @ExceptionHandler(InvalidItemException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public final Stream<String> handleInvalidItem(InvalidItemException e) {
+        return e.getErrors().stream();
+    }
+
+    // unreadable bodies, e.g. a status that is not one of the ItemStatus names
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public final String handleHttpMessageNotReadable(HttpMessageNotReadableException e) {
+        if (e.getCause() instanceof InvalidFormatException invalid && invalid.getTargetType().isEnum()) {
+            String field = invalid.getPath().stream()
+                    .map(JsonMappingException.Reference::getFieldName)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.joining("."));
+            return field + " must be one of " + Arrays.toString(invalid.getTargetType().getEnumConstants());
+        }
+        return "400 Bad Request: Malformed request body";
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public final String handleBadRequestException(BadRequestException e) {
+        return "400 Bad Request: " + e.getMessage();
+    }
+
+    // admission control: the client should come back after Retry-After seconds
+    @ExceptionHandler(TooManyRequestsException.class)
+    public final ResponseEntity<String> handleTooManyRequestsException(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("429 Too Many Requests: " + e.getMessage());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public final ResponseEntity<String> handleServiceUnavailableException(ServiceUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("503 Service Unavailable: " + e.getMessage());
+    }
+
+    // the If-Match version no longer matches the stored one
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public final String handlePreconditionFailedException(PreconditionFailedException e) {
+        return "412 Precondition Failed: " + e.getMessage();
+    }
+
+    // a concurrent writer got in between read and flush of a patched entity
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public final String handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        return "412 Precondition Failed: item was modified concurrently";
+    }
+
     @ExceptionHandler(NotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public final String handleNotFoundException(NotFoundException e) {
@@ -0,0 +1,42 @@
+package com.siemens.internship.controlleradvice;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.siemens.internship.controller.ItemController;
+import com.siemens.internship.model.ItemField;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// leaves only the properties named by ?fields= in JSON item bodies. The store has read just those
+// columns already; without the filter the unread ones would still be written, as nulls
+@ControllerAdvice(assignableTypes = ItemController.class)
+public class ItemFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType, MethodParameter returnType,
+                                           ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String fields = servletRequest.getServletRequest().getParameter("fields");
+        if (fields == null) {
+            return;
+        }
+        Set<String> properties;
+        try {
+            properties = ItemField.parse(fields).stream().map(ItemField::property).collect(Collectors.toSet());
+        } catch (IllegalArgumentException e) {
+            // endpoints that take fields reject it before a body is written, the others ignore it
+            return;
+        }
+        bodyContainer.setFilters(new SimpleFilterProvider().addFilter(ItemField.FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(properties)));
+    }
+}
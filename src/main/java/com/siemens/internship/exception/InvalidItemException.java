@@ -0,0 +1,17 @@
+package com.siemens.internship.exception;
+
+import java.util.List;
+
+// validation errors found outside of request binding, already formatted as "field message"
+public class InvalidItemException extends RuntimeException {
+    private final List<String> errors;
+
+    public InvalidItemException(List<String> errors) {
+        super(String.join(", ", errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,166 @@
+package com.siemens.internship.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// all application meters, registered once up front; recording only looks up a pre-built meter in an
+// EnumMap and adds a nanosecond duration, so the hot paths never allocate tags or builders
+@Component
+public class ItemMetrics {
+    // instrumented ItemService operations, the tag value is the method name
+    public enum ServiceOp {
+        FIND_ALL("findAll"),
+        FIND_PAGE("findPage"),
+        STREAM_ALL("streamAll"),
+        FIND_BY_ID("findById"),
+        SEARCH("search"),
+        SUGGEST_NAMES("suggestNames"),
+        SAVE("save"),
+        UPDATE("update"),
+        PATCH("patch"),
+        DELETE_BY_ID("deleteById"),
+        CHANGES_SINCE("changesSince"),
+        PROCESS_ITEMS("processItemsAsync"),
+        START_PROCESSING_JOB("startProcessingJob");
+
+        private final String method;
+
+        ServiceOp(String method) {
+            this.method = method;
+        }
+    }
+
+    // database statements issued outside Spring Data repository methods, which
+    // spring.data.repository.invocations does not see; the tag value names the statement
+    public enum Query {
+        CHANGE_LOG_NEXT_SEQ("changeLog.nextSeq"),
+        CHANGE_LOG_INSERT("changeLog.insert"),
+        ITEM_STORE_PROJECT("itemStore.project"),
+        ITEM_STORE_FLUSH("itemStore.flush");
+
+        private final String statement;
+
+        Query(String statement) {
+            this.statement = statement;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<ServiceOp, Timer> succeeded = new EnumMap<>(ServiceOp.class);
+    private final Map<ServiceOp, Timer> failed = new EnumMap<>(ServiceOp.class);
+    private final Map<Query, Timer> queries = new EnumMap<>(Query.class);
+
+    private final Timer chunkTimer;
+    private final Timer itemTimer;
+    private final Counter itemsProcessed;
+    private final Counter itemsFailed;
+    private final Counter itemsShed;
+
+    public ItemMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (ServiceOp op : ServiceOp.values()) {
+            succeeded.put(op, serviceTimer(registry, op, "success"));
+            failed.put(op, serviceTimer(registry, op, "error"));
+        }
+        for (Query query : Query.values()) {
+            queries.put(query, Timer.builder("item.db.query")
+                    .description("Time of database statements run outside repository methods")
+                    .tag("query", query.statement)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        chunkTimer = Timer.builder("item.processing.chunk")
+                .description("Time to read, update and commit one processing chunk")
+                .publishPercentileHistogram()
+                .register(registry);
+        itemTimer = Timer.builder("item.processing.item")
+                .description("Time from an item being read by a processing run until its new status committed")
+                .publishPercentileHistogram()
+                .register(registry);
+        itemsProcessed = Counter.builder("item.processing.items")
+                .description("Items processed by the batch engine")
+                .tag("result", "processed")
+                .register(registry);
+        itemsFailed = Counter.builder("item.processing.items")
+                .description("Items processed by the batch engine")
+                .tag("result", "failed")
+                .register(registry);
+        itemsShed = Counter.builder("item.processing.items")
+                .description("Items processed by the batch engine")
+                .tag("result", "shed")
+                .register(registry);
+    }
+
+    private static Timer serviceTimer(MeterRegistry registry, ServiceOp op, String outcome) {
+        return Timer.builder("item.service")
+                .description("Latency of ItemService operations")
+                .tag("method", op.method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // records a finished service call that started at startNanos (System.nanoTime())
+    public void record(ServiceOp op, long startNanos) {
+        succeeded.get(op).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // records a service call that ended with an exception
+    public void recordFailure(ServiceOp op, long startNanos) {
+        failed.get(op).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // records one committed chunk, timed over its write
+    public void recordChunk(long startNanos, int processed) {
+        chunkTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        itemsProcessed.increment(processed);
+    }
+
+    // records the latency of items that committed together, read by the run at readNanos; it includes
+    // the time their chunk waited for a worker and for the stages, which the chunk timer leaves out.
+    // The items of a chunk commit at the same moment, so each of them really took this long
+    public void recordItems(long readNanos, int items) {
+        long elapsed = System.nanoTime() - readNanos;
+        for (int i = 0; i < items; i++) {
+            itemTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // records one statement run outside a repository method, failed or not
+    public void recordQuery(Query query, long startNanos) {
+        queries.get(query).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // time one pipeline stage spends working on an item (per batch for persist); looked up once per run
+    public Timer stageTimer(String stage) {
+        return Timer.builder("item.processing.stage")
+                .description("Time a processing pipeline stage spends on an item")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // time items wait in the queue in front of a stage; a growing wait marks the stage to scale out
+    public Timer stageWaitTimer(String stage) {
+        return Timer.builder("item.processing.stage.wait")
+                .description("Time items wait in the queue in front of a processing pipeline stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public void recordChunkFailure(int items) {
+        itemsFailed.increment(items);
+    }
+
+    // items skipped by the SHED overload policy
+    public void recordChunkShed(int items) {
+        itemsShed.increment(items);
+    }
+}
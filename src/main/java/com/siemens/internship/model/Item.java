@@ -1,22 +1,42 @@
 package com.siemens.internship.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import jakarta.validation.constraints.Pattern;
-import lombok.AllArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Locale;
+
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 @Entity
+// UPDATE statements list only the dirty columns, so a single-field change writes a single column
+@DynamicUpdate
+@Table(indexes = {
+        @Index(name = "idx_item_status_id", columnList = "status, id"),
+        @Index(name = "idx_item_email", columnList = "email"),
+        @Index(name = "idx_item_email_domain_id", columnList = "email_domain, id"),
+        @Index(name = "idx_item_name_id", columnList = "name, id")
+})
 public class Item {
+    // pooled sequence: one sequence call hands out allocationSize ids, so batched inserts
+    // do not need a round trip per row to obtain their keys
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+    @SequenceGenerator(name = "item_seq", sequenceName = "item_seq", allocationSize = 50)
     private Long id;
 
     @Pattern(regexp = "^[a-zA-Z0-9_ ]{3,50}$", message = "Name must be 3-50 characters long and can only contain letters, numbers, spaces, and underscores")
@@ -25,10 +45,53 @@ public class Item {
     @Pattern(regexp = "^[a-zA-Z0-9_ ]{3,50}$", message = "Description must be 3-50 characters long and can only contain letters, numbers, spaces, and underscores")
     private String description;
 
-    @Pattern(regexp = "^(UNPROCESSED|PROCESSED)$", message = "Status must be either 'UNPROCESSED' or 'PROCESSED'")
-    private String status;
+    // enum stored by name; the (status, id) index lets processing select only UNPROCESSED rows in id order
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ItemStatus status;
 
     // @Email(message = "Invalid email format")
     @Pattern(regexp = "^[\\w.%+-]+@[\\w.-]+\\.[A-Za-z]{2,6}$", message = "Invalid email format")
     private String email;
-}
\ No newline at end of file
+
+    // lower-cased part of email after the '@', derived by setEmail and never part of the JSON; a column
+    // of its own so that searching by domain is an index range scan instead of a LIKE '%@...' table scan
+    @JsonIgnore
+    @Column(name = "email_domain")
+    private String emailDomain;
+
+    // optimistic concurrency: incremented by every write, exposed to clients as the ETag;
+    // primitive so that "new or existing" is still decided by the id alone
+    @Version
+    private long version;
+
+    public Item(Long id, String name, String description, ItemStatus status, String email, long version) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.status = status;
+        setEmail(email);
+        this.version = version;
+    }
+
+    // item at its initial version, e.g. a new item or a client payload
+    public Item(Long id, String name, String description, ItemStatus status, String email) {
+        this(id, name, description, status, email, 0L);
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailDomain = domainOf(email);
+    }
+
+    // the domain emailDomain holds for the given address, null if it has none
+    public static String domainOf(String email) {
+        int at = email == null ? -1 : email.lastIndexOf('@');
+        return at < 0 ? null : email.substring(at + 1).toLowerCase(Locale.ROOT);
+    }
+
+    // detached field-by-field copy, used to hand out snapshots that share no state with the original
+    public Item copy() {
+        return new Item(id, name, description, status, email, version);
+    }
+}
@@ -0,0 +1,179 @@
+package com.siemens.internship.model;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// compact binary form of items, served as application/x-item-binary. The field order is the schema, so
+// no field names are written: a FORMAT byte, then one record per item of
+//   id (varint, id + 1, 0 for none), version (varint), status (ordinal byte, 0xFF for none),
+//   name, description, email (varint byte length + 1, 0 for none, then the UTF-8 bytes)
+// There is no item count up front, a list ends with the stream, so it can be written as it is produced
+public final class ItemBinaryCodec {
+    public static final int FORMAT = 1;
+
+    private static final int NULL_STATUS = 0xFF;
+    private static final int MAX_VARLONG_BYTES = 10;
+    private static final ItemStatus[] STATUSES = ItemStatus.values();
+
+    private ItemBinaryCodec() {
+    }
+
+    // encodes items into a buffer of its own and hands it to the target stream whenever it fills up, so
+    // the target sees few large writes; UTF-8 is encoded in place instead of through String.getBytes
+    public static final class Writer {
+        private final OutputStream out;
+        private final byte[] buffer;
+        private int position;
+
+        public Writer(OutputStream out, int bufferSize) throws IOException {
+            this.out = out;
+            // at least room for the fixed part of a record, strings longer than the buffer are written in pieces
+            this.buffer = new byte[Math.max(bufferSize, 64)];
+            buffer[position++] = FORMAT;
+        }
+
+        public void write(Item item) throws IOException {
+            ensure(2 * MAX_VARLONG_BYTES + 1);
+            writeVarLong(item.getId() == null ? 0 : item.getId() + 1);
+            writeVarLong(item.getVersion());
+            buffer[position++] = (byte) (item.getStatus() == null ? NULL_STATUS : item.getStatus().ordinal());
+            writeString(item.getName());
+            writeString(item.getDescription());
+            writeString(item.getEmail());
+        }
+
+        // writes out what is buffered; the target stream is left open
+        public void flush() throws IOException {
+            out.write(buffer, 0, position);
+            position = 0;
+            out.flush();
+        }
+
+        private void writeString(String value) throws IOException {
+            ensure(MAX_VARLONG_BYTES);
+            if (value == null) {
+                buffer[position++] = 0;
+                return;
+            }
+            writeVarLong(utf8Length(value) + 1L);
+            for (int i = 0; i < value.length(); i++) {
+                ensure(4);
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | c >> 6);
+                    buffer[position++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | codePoint >> 18);
+                    buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    // unpaired surrogate, replaced by '?' as String.getBytes does
+                    buffer[position++] = '?';
+                } else {
+                    buffer[position++] = (byte) (0xE0 | c >> 12);
+                    buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    buffer[position++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+        }
+
+        // unsigned LEB128: seven bits per byte, low bits first, the high bit set on all but the last byte
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (position + bytes > buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+
+    // byte length of the UTF-8 form of value, as the Writer encodes it
+    private static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // a pair of chars, four bytes
+                    length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 2;
+                }
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    // fails on a stream that was written in another format
+    public static void readHeader(InputStream in) throws IOException {
+        int format = in.read();
+        if (format != FORMAT) {
+            throw new IOException("Unsupported item encoding format: " + format);
+        }
+    }
+
+    // the next item, null at the end of the stream
+    public static Item read(InputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        long id = readVarLong(first, in);
+        long version = readVarLong(in.read(), in);
+        int status = in.read();
+        if (status < 0) {
+            throw new EOFException("Truncated item record");
+        }
+        String name = readString(in);
+        String description = readString(in);
+        String email = readString(in);
+        return new Item(id == 0 ? null : id - 1, name, description, status == NULL_STATUS ? null : STATUSES[status], email, version);
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        long length = readVarLong(in.read(), in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes((int) (length - 1));
+        if (bytes.length != length - 1) {
+            throw new EOFException("Truncated item record");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarLong(int first, InputStream in) throws IOException {
+        long value = 0;
+        int b = first;
+        for (int shift = 0; ; shift += 7) {
+            if (b < 0) {
+                throw new EOFException("Truncated item record");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            if (shift > 56) {
+                throw new IOException("Malformed varint in item record");
+            }
+            b = in.read();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// one entry of the item outbox, written in the transaction of the change it records. seq is the cursor
+// of the change feed; it is taken from ItemChangeSequence, whose row the recording transaction holds
+// until it commits, so a visible seq means every lower one has committed or rolled back
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "item_change", indexes = @Index(name = "idx_item_change_changed_at", columnList = "changed_at"))
+public class ItemChange {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        // moved by a processing run
+        PROCESSED
+    }
+
+    @Id
+    private Long seq;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Type type;
+
+    // the status after the change, null for a deletion
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ItemStatus status;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    public static ItemChange of(long itemId, Type type, ItemStatus status) {
+        return new ItemChange(null, itemId, type, status, null);
+    }
+
+    // a write that returned version 0 inserted the item
+    public static ItemChange of(Item item) {
+        return of(item.getId(), item.getVersion() == 0 ? Type.CREATED : Type.UPDATED, item.getStatus());
+    }
+}
@@ -0,0 +1,78 @@
+package com.siemens.internship.model;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// the fields of an item a client can select with ?fields=; property is both the JSON property and the
+// JPA attribute, so a field list maps directly to the columns of a projection query
+public enum ItemField {
+    ID("id", Item::getId, (item, value) -> item.setId((Long) value)),
+    NAME("name", Item::getName, (item, value) -> item.setName((String) value)),
+    DESCRIPTION("description", Item::getDescription, (item, value) -> item.setDescription((String) value)),
+    STATUS("status", Item::getStatus, (item, value) -> item.setStatus((ItemStatus) value)),
+    EMAIL("email", Item::getEmail, (item, value) -> item.setEmail((String) value)),
+    VERSION("version", Item::getVersion, (item, value) -> item.setVersion((Long) value));
+
+    // id of the Jackson filter that leaves only the selected properties in a response
+    public static final String FILTER = "itemFields";
+
+    private final String property;
+    private final Function<Item, Object> getter;
+    private final BiConsumer<Item, Object> setter;
+
+    ItemField(String property, Function<Item, Object> getter, BiConsumer<Item, Object> setter) {
+        this.property = property;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    public Object get(Item item) {
+        return getter.apply(item);
+    }
+
+    public void set(Item item, Object value) {
+        setter.accept(item, value);
+    }
+
+    // a new item holding only the given fields of item, the others null (0 for the version), as a
+    // projection query of the same fields returns it
+    public static Item project(Item item, Set<ItemField> fields) {
+        Item projected = new Item();
+        for (ItemField field : fields) {
+            field.set(projected, field.get(item));
+        }
+        return projected;
+    }
+
+    // comma-separated property names, e.g. "id,status"; IllegalArgumentException for an unknown or empty list
+    public static Set<ItemField> parse(String fields) {
+        Set<ItemField> parsed = EnumSet.noneOf(ItemField.class);
+        for (String name : fields.split(",")) {
+            String property = name.trim();
+            if (!property.isEmpty()) {
+                parsed.add(of(property));
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("fields must name at least one field");
+        }
+        return parsed;
+    }
+
+    private static ItemField of(String property) {
+        for (ItemField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field: " + property + ", expected one of "
+                + String.join(", ", Arrays.stream(values()).map(ItemField::property).toList()));
+    }
+}
@@ -0,0 +1,7 @@
+package com.siemens.internship.model;
+
+// lifecycle of an item, stored by name in the indexed status column
+public enum ItemStatus {
+    UNPROCESSED,
+    PROCESSED
+}
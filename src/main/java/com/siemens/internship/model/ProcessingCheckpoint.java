@@ -0,0 +1,59 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// durable progress of one processing run: every item with an id up to resumeAfter has been committed
+// or recorded as a ProcessingFailure, so a run taking over after a crash starts its scan there
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "processing_checkpoint", indexes = @Index(name = "idx_processing_checkpoint_state", columnList = "state, updated_at"))
+public class ProcessingCheckpoint {
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        // ended early (cancelled, failed, or found RUNNING after a restart), the next run resumes it
+        INTERRUPTED,
+        // taken over by a later run
+        RESUMED
+    }
+
+    @Id
+    @Column(name = "run_id", length = 36)
+    private String runId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private State state;
+
+    @Column(name = "resume_after", nullable = false)
+    private long resumeAfter;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(nullable = false)
+    private long failed;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // node that started the run; after a restart a node only interrupts runs of its own
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+}
@@ -0,0 +1,32 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// an item a processing run could not process (or shed), kept until a retry run processes it;
+// keyed by the item, so failing again only refreshes the row
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "processing_failure")
+public class ProcessingFailure {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "run_id", length = 36, nullable = false)
+    private String runId;
+
+    private String error;
+
+    @Column(name = "failed_at", nullable = false)
+    private Instant failedAt;
+}
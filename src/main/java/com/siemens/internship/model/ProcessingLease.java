@@ -0,0 +1,62 @@
+package com.siemens.internship.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+// one range of item ids, (rangeStart, rangeStart + range size], as leased by the nodes sharing the
+// database: nodeId holds it until expiresAt unless it renews the lease; a free range has no nodeId.
+// completedAt is when a node last worked through the whole range
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@IdClass(ProcessingLease.Key.class)
+@Table(name = "processing_lease", indexes = @Index(name = "idx_processing_lease_node", columnList = "node_id"))
+public class ProcessingLease {
+    // what the ranges are leased for; a scan of the items and a retry of the failures read different ids
+    public enum Scope {
+        UNPROCESSED,
+        RETRY
+    }
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private Scope scope;
+
+    @Id
+    @Column(name = "range_start")
+    private Long rangeStart;
+
+    @Column(name = "node_id", length = 64)
+    private String nodeId;
+
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Key implements Serializable {
+        private Scope scope;
+        private Long rangeStart;
+    }
+}
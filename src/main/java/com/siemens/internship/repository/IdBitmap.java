@@ -0,0 +1,115 @@
+package com.siemens.internship.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// the ids a striped store holds, one bit per id in pages that are added as ids grow. Ids are dense, so
+// this is far smaller than a tree of boxed ids, and a scan finds the next id 64 ids per word instead of
+// probing every id up to the highest. Bits change with a CAS on their word, readers never lock
+final class IdBitmap {
+    // 64K ids per page
+    private static final int PAGE_WORDS = 1024;
+
+    private volatile AtomicLongArray[] pages = new AtomicLongArray[0];
+
+    void add(long id) {
+        long mask = 1L << (id & 63);
+        long word = id >>> 6;
+        pageFor(word).getAndUpdate((int) (word % PAGE_WORDS), bits -> bits | mask);
+    }
+
+    void remove(long id) {
+        long word = id >>> 6;
+        AtomicLongArray[] current = pages;
+        if (word / PAGE_WORDS < current.length) {
+            long mask = 1L << (id & 63);
+            current[(int) (word / PAGE_WORDS)].getAndUpdate((int) (word % PAGE_WORDS), bits -> bits & ~mask);
+        }
+    }
+
+    // the smallest id in the set greater than after, -1 if there is none
+    long next(long after) {
+        long from = Math.max(after, -1L) + 1;
+        AtomicLongArray[] current = pages;
+        long end = (long) current.length * PAGE_WORDS;
+        long word = from >>> 6;
+        if (word >= end) {
+            return -1;
+        }
+        long bits = wordAt(current, word) & (-1L << (from & 63));
+        while (bits == 0) {
+            if (++word >= end) {
+                return -1;
+            }
+            bits = wordAt(current, word);
+        }
+        return word * 64 + Long.numberOfTrailingZeros(bits);
+    }
+
+    // the words covering ids up to last, little-endian, a page at a time; callers make sure the set does
+    // not change meanwhile
+    void writeTo(WritableByteChannel out, long last) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_WORDS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        AtomicLongArray[] current = pages;
+        long words = (last >>> 6) + 1;
+        for (long word = 0; word < words; word++) {
+            buffer.putLong(word / PAGE_WORDS < current.length ? wordAt(current, word) : 0L);
+            if (!buffer.hasRemaining() || word == words - 1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+    }
+
+    // adds the ids writeTo wrote for the same last
+    void readFrom(ReadableByteChannel in, long last) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PAGE_WORDS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long words = (last >>> 6) + 1;
+        for (long word = 0; word < words; ) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), (words - word) * Long.BYTES));
+            while (buffer.hasRemaining()) {
+                if (in.read(buffer) < 0) {
+                    throw new IOException("Id index ends after " + word + " of " + words + " words");
+                }
+            }
+            buffer.flip();
+            for (; buffer.hasRemaining(); word++) {
+                long bits = buffer.getLong();
+                if (bits != 0) {
+                    pageFor(word).set((int) (word % PAGE_WORDS), bits);
+                }
+            }
+        }
+    }
+
+    private static long wordAt(AtomicLongArray[] pages, long word) {
+        return pages[(int) (word / PAGE_WORDS)].get((int) (word % PAGE_WORDS));
+    }
+
+    private AtomicLongArray pageFor(long word) {
+        int index = (int) (word / PAGE_WORDS);
+        AtomicLongArray[] current = pages;
+        return index < current.length ? current[index] : grow(index);
+    }
+
+    private synchronized AtomicLongArray grow(int index) {
+        AtomicLongArray[] current = pages;
+        if (index < current.length) {
+            return current[index];
+        }
+        AtomicLongArray[] grown = Arrays.copyOf(current, index + 1);
+        for (int i = current.length; i <= index; i++) {
+            grown[i] = new AtomicLongArray(PAGE_WORDS);
+        }
+        pages = grown;
+        return grown[index];
+    }
+}
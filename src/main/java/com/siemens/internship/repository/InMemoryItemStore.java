@@ -0,0 +1,89 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.config.StoreProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// heap store for nodes without a database: one primitive long-keyed map per lock stripe,
+// so writers of different stripes never contend. Contents are lost on restart
+@Component
+@ConditionalOnProperty(prefix = "items.store", name = "type", havingValue = "memory")
+public class InMemoryItemStore extends StripedItemStore {
+    private final LongItemMap[] maps;
+    private final AtomicLong lastId = new AtomicLong();
+    private final Map<ItemStatus, LongAdder> counts = new EnumMap<>(ItemStatus.class);
+
+    public InMemoryItemStore(StoreProperties properties) {
+        super(properties.getStripes());
+        maps = new LongItemMap[stripeCount()];
+        for (int i = 0; i < maps.length; i++) {
+            maps[i] = new LongItemMap(1024);
+        }
+        for (ItemStatus status : ItemStatus.values()) {
+            counts.put(status, new LongAdder());
+        }
+    }
+
+    @Override
+    protected Item read(long id) {
+        Item item = maps[stripeOf(id)].get(id);
+        return item == null ? null : item.copy();
+    }
+
+    @Override
+    protected ItemStatus readStatus(long id) {
+        Item item = maps[stripeOf(id)].get(id);
+        return item == null ? null : item.getStatus();
+    }
+
+    @Override
+    protected boolean contains(long id) {
+        return maps[stripeOf(id)].get(id) != null;
+    }
+
+    @Override
+    protected void write(Item item) {
+        maps[stripeOf(item.getId())].put(item.getId(), item);
+    }
+
+    @Override
+    protected void writeStatus(long id, ItemStatus status, long version) {
+        Item item = maps[stripeOf(id)].get(id);
+        item.setStatus(status);
+        item.setVersion(version);
+    }
+
+    @Override
+    protected long readVersion(long id) {
+        return maps[stripeOf(id)].get(id).getVersion();
+    }
+
+    @Override
+    protected boolean remove(long id) {
+        return maps[stripeOf(id)].remove(id);
+    }
+
+    @Override
+    protected long allocateId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    protected void addToCount(ItemStatus status, long delta) {
+        if (status != null) {
+            counts.get(status).add(delta);
+        }
+    }
+
+    @Override
+    public long countByStatus(ItemStatus status) {
+        return status == null ? 0 : counts.get(status).sum();
+    }
+}
@@ -0,0 +1,24 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ItemChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface ItemChangeRepository extends JpaRepository<ItemChange, Long> {
+    // keyset page of the feed on the primary key; seqs commit in order (see ItemChangeSequence), so a page
+    // never passes a seq that is still to commit
+    @Query("SELECT c FROM ItemChange c WHERE c.seq > :since ORDER BY c.seq")
+    List<ItemChange> findPage(@Param("since") long since, Pageable page);
+
+    // changes older than ageNanos by the database clock that stamped them
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ItemChange c WHERE c.changedAt < instant - :ageNanos nanosecond")
+    int deleteOlderThan(@Param("ageNanos") long ageNanos);
+}
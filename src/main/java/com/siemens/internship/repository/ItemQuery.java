@@ -0,0 +1,49 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+
+import java.util.Comparator;
+
+// one page of a filtered search: every non-null filter must match, results come in the given order and
+// start strictly after the keyset position of the previous page (afterName/afterId of its last item).
+// Ordered by NAME, items without a name are not part of the result, so the keyset never meets a null
+public record ItemQuery(ItemStatus status, String email, String emailDomain, String namePrefix,
+                        Order order, String afterName, long afterId, int limit) {
+    public enum Order {
+        ID, NAME
+    }
+
+    // the order of the result, id breaks ties between equal names
+    static final Comparator<Item> BY_NAME = Comparator.comparing(Item::getName).thenComparing(Item::getId);
+
+    public ItemQuery {
+        if (order == null) {
+            order = Order.ID;
+        }
+    }
+
+    // the same filters and keyset condition the JPA store evaluates in the database
+    boolean matches(Item item) {
+        if (status != null && item.getStatus() != status) {
+            return false;
+        }
+        if (email != null && !email.equals(item.getEmail())) {
+            return false;
+        }
+        if (emailDomain != null && !emailDomain.equals(item.getEmailDomain())) {
+            return false;
+        }
+        if (namePrefix != null && (item.getName() == null || !item.getName().startsWith(namePrefix))) {
+            return false;
+        }
+        if (order == Order.ID) {
+            return item.getId() > afterId;
+        }
+        if (item.getName() == null) {
+            return false;
+        }
+        int byName = afterName == null ? 1 : item.getName().compareTo(afterName);
+        return byName > 0 || byName == 0 && item.getId() > afterId;
+    }
+}
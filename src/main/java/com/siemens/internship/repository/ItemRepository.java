@@ -1,12 +1,87 @@
 package com.siemens.internship.repository;
 
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+// filtered searches go through JpaSpecificationExecutor with the predicates of ItemSpecifications
+public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificationExecutor<Item> {
     @Query("SELECT id FROM Item")
     List<Long> findAllIds();
+
+    long countByStatus(ItemStatus status);
+
+    // which of the given ids exist, in a single query
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // keyset page over all items: the next items strictly after afterId, ordered by id
+    List<Item> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable page);
+
+    // forward-only cursor over all items after afterId, the fetch size keeps the driver from buffering the whole result;
+    // must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT i FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    Stream<Item> streamByIdGreaterThan(@Param("afterId") Long afterId);
+
+    // keyset pagination: returns the next ids with the given status strictly after afterId,
+    // so each page costs an index range scan instead of an OFFSET skip
+    @Query("SELECT i.id FROM Item i WHERE i.status = :status AND i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsByStatusAfter(@Param("status") ItemStatus status, @Param("afterId") Long afterId, Pageable page);
+
+    // full replacement guarded by the expected version: existence check, version check and write in one
+    // statement; returns 0 when the row is missing or was changed concurrently
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Item i SET i.name = :name, i.description = :description, i.status = :status, i.email = :email, "
+            + "i.emailDomain = :emailDomain, i.version = i.version + 1 WHERE i.id = :id AND i.version = :expectedVersion")
+    int updateIfVersion(@Param("id") Long id, @Param("expectedVersion") long expectedVersion,
+                        @Param("name") String name, @Param("description") String description,
+                        @Param("status") ItemStatus status, @Param("email") String email,
+                        @Param("emailDomain") String emailDomain);
+
+    // full replacement without a precondition, still a single statement; returns 0 when the row is missing
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Item i SET i.name = :name, i.description = :description, i.status = :status, i.email = :email, "
+            + "i.emailDomain = :emailDomain, i.version = i.version + 1 WHERE i.id = :id")
+    int updateUnconditionally(@Param("id") Long id, @Param("name") String name, @Param("description") String description,
+                              @Param("status") ItemStatus status, @Param("email") String email,
+                              @Param("emailDomain") String emailDomain);
+
+    @Query("SELECT i.version FROM Item i WHERE i.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    // the rows of a chunk a status transition moves, locked until the transaction ends so the UPDATE
+    // that follows changes exactly these
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :ids AND i.status = :from")
+    List<Long> lockIdsInStatus(@Param("ids") Collection<Long> ids, @Param("from") ItemStatus from);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i.id FROM Item i WHERE i.id IN :ids AND (i.status IS NULL OR i.status <> :to)")
+    List<Long> lockIdsNotInStatus(@Param("ids") Collection<Long> ids, @Param("to") ItemStatus to);
+
+    // bulk status transition for a whole chunk in one statement; only rows still in the "from" state are touched
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Item i SET i.status = :to, i.version = i.version + 1 WHERE i.id IN :ids AND i.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") ItemStatus from, @Param("to") ItemStatus to);
+
+    // bulk status transition from any status; rows already in the target status are left untouched
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Item i SET i.status = :to, i.version = i.version + 1 WHERE i.id IN :ids AND (i.status IS NULL OR i.status <> :to)")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("to") ItemStatus to);
 }
@@ -0,0 +1,60 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.Item;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ItemQuery as a JPA Specification; every predicate is sargable, so each filter is served by one of
+// the item indexes: (status, id), (email), (email_domain, id) and (name, id) for prefixes and name order
+final class ItemSpecifications {
+    private static final char ESCAPE = '\\';
+
+    private ItemSpecifications() {
+    }
+
+    static Specification<Item> of(ItemQuery query) {
+        return (root, criteria, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(5);
+            if (query.status() != null) {
+                predicates.add(cb.equal(root.get("status"), query.status()));
+            }
+            if (query.email() != null) {
+                predicates.add(cb.equal(root.get("email"), query.email()));
+            }
+            if (query.emailDomain() != null) {
+                predicates.add(cb.equal(root.get("emailDomain"), query.emailDomain()));
+            }
+            if (query.namePrefix() != null) {
+                // a LIKE with a constant prefix and no leading wildcard is a range scan on the name index
+                predicates.add(cb.like(root.get("name"), escapeLike(query.namePrefix()) + "%", ESCAPE));
+            }
+            if (query.order() == ItemQuery.Order.ID) {
+                predicates.add(cb.greaterThan(root.get("id"), query.afterId()));
+            } else if (query.afterName() == null) {
+                predicates.add(cb.isNotNull(root.get("name")));
+            } else {
+                // row-value keyset (name, id) > (afterName, afterId), spelled out for JPQL
+                predicates.add(cb.or(
+                        cb.greaterThan(root.get("name"), query.afterName()),
+                        cb.and(cb.equal(root.get("name"), query.afterName()), cb.greaterThan(root.get("id"), query.afterId()))));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    // the prefix is matched literally, % and _ typed by a client are not wildcards
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.model.ItemStatus;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// storage SPI behind the services, selected with items.store.type (jpa, memory or offheap).
+// Items handed in and out are detached snapshots: callers may mutate them freely. Every write bumps
+// the item's version; ids are assigned by the store, an id it does not know is treated as a new item.
+// Failures are reported as Spring DataAccessExceptions, the same hierarchy the JPA store translates to
+public interface ItemStore {
+    Optional<Item> findById(long id);
+
+    List<Item> findAll();
+
+    // keyset page: up to limit items with an id greater than afterId, ordered by id
+    List<Item> findPage(long afterId, int limit);
+
+    // hands every item after afterId to the sink in id order without materializing the result
+    void forEach(long afterId, Consumer<Item> sink);
+
+    List<Item> findAllById(Collection<Long> ids);
+
+    long countByStatus(ItemStatus status);
+
+    // keyset page of ids in the given status, ordered by id
+    List<Long> findIdsByStatusAfter(ItemStatus status, long afterId, int limit);
+
+    // one keyset page of the items matching all filters of the query, in query order
+    List<Item> search(ItemQuery query);
+
+    // projections of findById, findPage and search: items holding at least the given fields, the others
+    // null (0 for the version). Results always carry the fields their order needs, the id and, for a
+    // search by name, the name. Stores that keep whole items in memory project the full items
+    default Optional<Item> findById(long id, Set<ItemField> fields) {
+        return findById(id).map(item -> ItemField.project(item, fields));
+    }
+
+    default List<Item> findPage(long afterId, int limit, Set<ItemField> fields) {
+        return project(findPage(afterId, limit), fields, ItemQuery.Order.ID);
+    }
+
+    default List<Item> search(ItemQuery query, Set<ItemField> fields) {
+        return project(search(query), fields, query.order());
+    }
+
+    // the fields a projection in the given order reads on top of the requested ones
+    static Set<ItemField> withKeyset(Set<ItemField> fields, ItemQuery.Order order) {
+        Set<ItemField> selected = EnumSet.of(ItemField.ID);
+        selected.addAll(fields);
+        if (order == ItemQuery.Order.NAME) {
+            selected.add(ItemField.NAME);
+        }
+        return selected;
+    }
+
+    private static List<Item> project(List<Item> items, Set<ItemField> fields, ItemQuery.Order order) {
+        Set<ItemField> selected = withKeyset(fields, order);
+        return items.stream().map(item -> ItemField.project(item, selected)).toList();
+    }
+
+    // inserts the item, or overwrites it if its id exists; returns the stored snapshot
+    Item save(Item item);
+
+    // overwrites all fields of an existing item; empty if the id is unknown,
+    // OptimisticLockingFailureException if expectedVersion is set and does not match
+    Optional<Item> replace(long id, Item changes, Long expectedVersion);
+
+    // read-modify-write of a single item with the same contract as replace; an exception thrown
+    // by change aborts the update and leaves the stored item as it was
+    Optional<Item> update(long id, Long expectedVersion, Consumer<Item> change);
+
+    void deleteById(long id);
+
+    // bulk writes of one chunk, each applied as a unit where the store supports it
+    List<Item> insertAll(List<Item> items);
+
+    // returns the ids that existed and were overwritten
+    Set<Long> replaceAll(List<Item> items);
+
+    // overwrites the items whose stored version still equals their own and returns the ids written;
+    // missing items and items changed since they were read are skipped
+    Set<Long> replaceAllIfVersion(List<Item> items);
+
+    // returns the ids that existed and were deleted
+    Set<Long> deleteAll(Collection<Long> ids);
+
+    // moves the given items to status to; with from set only items currently in that status move,
+    // otherwise every item not already in status to; returns the ids that moved
+    Set<Long> updateStatus(Collection<Long> ids, ItemStatus from, ItemStatus to);
+}
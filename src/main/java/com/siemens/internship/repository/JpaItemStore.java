@@ -0,0 +1,294 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.metrics.ItemMetrics;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.model.ItemStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// the default store: JPA on the configured datasource through ItemRepository
+@Component
+@ConditionalOnProperty(prefix = "items.store", name = "type", havingValue = "jpa", matchIfMissing = true)
+public class JpaItemStore implements ItemStore {
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // times the EntityManager work below, which spring.data.repository.invocations does not see
+    @Autowired
+    private ItemMetrics metrics;
+
+    @Override
+    public Optional<Item> findById(long id) {
+        return itemRepository.findById(id);
+    }
+
+    @Override
+    public List<Item> findAll() {
+        return itemRepository.findAll();
+    }
+
+    // query paths run in read-only transactions: no snapshots for dirty checking, no flush, and one
+    // transaction per call instead of none, since declared query methods of ItemRepository get none
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> findPage(long afterId, int limit) {
+        return itemRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
+    }
+
+    // each entity is detached once written, so the persistence context (and the heap)
+    // stays flat however many rows there are
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(long afterId, Consumer<Item> sink) {
+        try (Stream<Item> items = itemRepository.streamByIdGreaterThan(afterId)) {
+            items.forEach(item -> {
+                sink.accept(item);
+                entityManager.detach(item);
+            });
+        }
+    }
+
+    @Override
+    public List<Item> findAllById(Collection<Long> ids) {
+        return itemRepository.findAllById(ids);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countByStatus(ItemStatus status) {
+        return itemRepository.countByStatus(status);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findIdsByStatusAfter(ItemStatus status, long afterId, int limit) {
+        return itemRepository.findIdsByStatusAfter(status, afterId, PageRequest.of(0, limit));
+    }
+
+    // a single SELECT ... ORDER BY ... LIMIT without a count query, the keyset is part of the WHERE clause
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> search(ItemQuery query) {
+        Sort sort = query.order() == ItemQuery.Order.NAME ? Sort.by("name", "id") : Sort.by("id");
+        return itemRepository.findBy(ItemSpecifications.of(query), q -> q.sortBy(sort).limit(query.limit()).all());
+    }
+
+    // projections select only the requested columns into a Tuple, so no entity is created or managed
+    // by the persistence context; the items are built from the tuples
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Item> findById(long id, Set<ItemField> fields) {
+        return project(fields, ItemQuery.Order.ID, (root, query, cb) -> cb.equal(root.get("id"), id), 1).stream().findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> findPage(long afterId, int limit, Set<ItemField> fields) {
+        return project(fields, ItemQuery.Order.ID, (root, query, cb) -> cb.greaterThan(root.get("id"), afterId), limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Item> search(ItemQuery query, Set<ItemField> fields) {
+        return project(fields, query.order(), ItemSpecifications.of(query), query.limit());
+    }
+
+    private List<Item> project(Set<ItemField> fields, ItemQuery.Order order,
+                               Specification<Item> where, int limit) {
+        List<ItemField> selected = List.copyOf(ItemStore.withKeyset(fields, order));
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> criteria = cb.createTupleQuery();
+        Root<Item> root = criteria.from(Item.class);
+        criteria.multiselect(selected.stream().<Selection<?>>map(field -> root.get(field.property())).toList())
+                .where(where.toPredicate(root, criteria, cb))
+                .orderBy(order == ItemQuery.Order.NAME
+                        ? List.of(cb.asc(root.get("name")), cb.asc(root.get("id")))
+                        : List.of(cb.asc(root.get("id"))));
+        long start = System.nanoTime();
+        List<Tuple> tuples;
+        try {
+            tuples = entityManager.createQuery(criteria).setMaxResults(limit).getResultList();
+        } finally {
+            metrics.recordQuery(ItemMetrics.Query.ITEM_STORE_PROJECT, start);
+        }
+        return tuples.stream()
+                .map(tuple -> {
+                    Item item = new Item();
+                    for (int i = 0; i < selected.size(); i++) {
+                        selected.get(i).set(item, tuple.get(i));
+                    }
+                    return item;
+                })
+                .toList();
+    }
+
+    @Override
+    public Item save(Item item) {
+        return itemRepository.save(item);
+    }
+
+    // a single conditional UPDATE instead of find + save; existence is only checked when nothing was
+    // updated, and only the unconditional form needs a second (version) read to build the result
+    @Override
+    @Transactional
+    public Optional<Item> replace(long id, Item changes, Long expectedVersion) {
+        int updated = expectedVersion == null
+                ? itemRepository.updateUnconditionally(id, changes.getName(), changes.getDescription(), changes.getStatus(),
+                        changes.getEmail(), changes.getEmailDomain())
+                : itemRepository.updateIfVersion(id, expectedVersion, changes.getName(), changes.getDescription(), changes.getStatus(),
+                        changes.getEmail(), changes.getEmailDomain());
+        if (updated == 0) {
+            if (!itemRepository.existsById(id)) {
+                return Optional.empty();
+            }
+            throw new OptimisticLockingFailureException("Item " + id + " was modified concurrently, expected version " + expectedVersion);
+        }
+        Optional<Long> version = expectedVersion != null ? Optional.of(expectedVersion + 1) : itemRepository.findVersionById(id);
+        return version.map(it -> {
+            Item result = changes.copy();
+            result.setId(id);
+            result.setVersion(it);
+            return result;
+        });
+    }
+
+    // the managed entity is changed in place; with @DynamicUpdate the flush writes only the changed
+    // columns, and a concurrent writer in between surfaces as an optimistic locking failure
+    @Override
+    @Transactional
+    public Optional<Item> update(long id, Long expectedVersion, Consumer<Item> change) {
+        Optional<Item> found = itemRepository.findById(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Item item = found.get();
+        if (expectedVersion != null && item.getVersion() != expectedVersion) {
+            throw new OptimisticLockingFailureException("Item " + id + " is at version " + item.getVersion() + ", expected " + expectedVersion);
+        }
+        change.accept(item);
+        itemRepository.flush();
+        return Optional.of(item.copy());
+    }
+
+    // a single DELETE; deleteById would load the entity first to remove it through the persistence context
+    @Override
+    public void deleteById(long id) {
+        itemRepository.deleteAllByIdInBatch(List.of(id));
+    }
+
+    // bulk chunks: one transaction each, flushed as a single JDBC batch and cleared afterwards
+    // so the persistence context never outgrows a chunk
+    @Override
+    @Transactional
+    public List<Item> insertAll(List<Item> items) {
+        List<Item> inserted = new ArrayList<>(items.size());
+        for (Item item : items) {
+            item.setId(null);
+            entityManager.persist(item);
+            inserted.add(item);
+        }
+        flush();
+        return inserted;
+    }
+
+    @Override
+    @Transactional
+    public Set<Long> replaceAll(List<Item> items) {
+        return replaceAll(items, false);
+    }
+
+    // like replaceAll, the versioned UPDATEs Hibernate flushes also catch a writer that slips in between
+    // the select and the flush, which fails the chunk with an optimistic locking failure
+    @Override
+    @Transactional
+    public Set<Long> replaceAllIfVersion(List<Item> items) {
+        return replaceAll(items, true);
+    }
+
+    // one select for the whole chunk, the changes are flushed as batched UPDATEs; with ifVersion an item
+    // is only replaced while its stored version is the one it carries
+    private Set<Long> replaceAll(List<Item> items, boolean ifVersion) {
+        Map<Long, Item> existing = itemRepository.findAllById(items.stream().map(Item::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Set<Long> replaced = new HashSet<>();
+        for (Item update : items) {
+            Item managed = existing.get(update.getId());
+            if (managed != null && (!ifVersion || managed.getVersion() == update.getVersion())) {
+                managed.setName(update.getName());
+                managed.setDescription(update.getDescription());
+                managed.setStatus(update.getStatus());
+                managed.setEmail(update.getEmail());
+                replaced.add(managed.getId());
+            }
+        }
+        flush();
+        return replaced;
+    }
+
+    // writes the batched statements of a chunk and empties the persistence context
+    private void flush() {
+        long start = System.nanoTime();
+        try {
+            entityManager.flush();
+        } finally {
+            metrics.recordQuery(ItemMetrics.Query.ITEM_STORE_FLUSH, start);
+        }
+        entityManager.clear();
+    }
+
+    // one select to tell deleted from missing rows, then a single DELETE ... WHERE id IN
+    @Override
+    @Transactional
+    public Set<Long> deleteAll(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>(itemRepository.findExistingIds(ids));
+        itemRepository.deleteAllByIdInBatch(existing);
+        return existing;
+    }
+
+    // locks the rows that move, then moves them: the ids that changed are known exactly, for the price of
+    // a second statement per chunk. Joins the caller's transaction, so the change log commits with it
+    @Override
+    @Transactional
+    public Set<Long> updateStatus(Collection<Long> ids, ItemStatus from, ItemStatus to) {
+        List<Long> moving = from == null ? itemRepository.lockIdsNotInStatus(ids, to) : itemRepository.lockIdsInStatus(ids, from);
+        if (moving.isEmpty()) {
+            return Set.of();
+        }
+        if (from == null) {
+            itemRepository.updateStatus(moving, to);
+        } else {
+            itemRepository.updateStatus(moving, from, to);
+        }
+        return new HashSet<>(moving);
+    }
+}
@@ -0,0 +1,447 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.config.StoreProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+// items as fixed-size records in a memory-mapped file, addressed directly by id: record id lives at
+// HEADER_SIZE + (id - 1) * RECORD_SIZE. The heap holds no item state, only a bitmap of the ids in use and
+// the Items built for callers, which keeps GC pauses flat however many items are stored. The header keeps
+// the last id and the per-status counters, updated atomically in the mapped memory.
+// A record is two slots, each a full copy of the item with its version and a CRC32C. A write goes to the
+// slot not holding the current version and the newer intact slot wins, so a write torn by a crash falls
+// back to the version before it instead of losing the item. Written slots are forced to disk every
+// sync-interval. A clean shutdown saves the id bitmap next to the file and marks the header clean; the
+// next start then only maps the file and loads the bitmap. Only a start after a crash checks every slot,
+// discards torn ones and recounts the statuses
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "items.store", name = "type", havingValue = "offheap")
+public class OffHeapItemStore extends StripedItemStore implements AutoCloseable {
+    private static final long MAGIC = 0x4954454D53544F52L; // "ITEMSTOR"
+    private static final int FORMAT = 3;
+    private static final int HEADER_SIZE = 4096;
+
+    // header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int FORMAT_OFFSET = 8;
+    private static final int RECORD_SIZE_OFFSET = 12;
+    private static final int LAST_ID_OFFSET = 16;
+    // 1 while the file is closed cleanly, cleared as soon as it is opened
+    private static final int CLEAN_OFFSET = 24;
+    private static final int COUNTS_OFFSET = 32;
+
+    // slot layout: version, checksum, state, status ordinal, then each string as a length byte and a fixed
+    // UTF-8 area; NULL marks a null status or string. Ordinals are persisted, so ItemStatus constants may
+    // only ever be appended. The checksum covers everything but itself
+    private static final int VERSION = 0;
+    private static final int CHECKSUM = 8;
+    private static final int STATE = 12;
+    private static final int STATUS = 13;
+    private static final int NAME = 14;
+    private static final int NAME_BYTES = 64;
+    private static final int DESCRIPTION = NAME + 1 + NAME_BYTES;
+    private static final int DESCRIPTION_BYTES = 64;
+    private static final int EMAIL = DESCRIPTION + 1 + DESCRIPTION_BYTES;
+    private static final int EMAIL_BYTES = 128;
+    // rounded up to keep every slot's version 8-byte aligned
+    private static final int SLOT_SIZE = (EMAIL + 1 + EMAIL_BYTES + 7) & ~7;
+    static final int RECORD_SIZE = 2 * SLOT_SIZE;
+
+    // a slot never written
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+    // the slot records the deletion of the item
+    private static final byte DELETED = 2;
+    private static final byte NULL = (byte) 0xFF;
+    private static final ItemStatus[] STATUSES = ItemStatus.values();
+
+    // atomic read-modify-write on the mapped header
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path indexPath;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final int recordsPerSegment;
+    private final long segmentBytes;
+    private final Duration syncInterval;
+    // without a sync interval every write is forced before it returns
+    private final boolean syncEachWrite;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    // Spring's shared scheduler, shut down by the context
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    public OffHeapItemStore(StoreProperties properties) {
+        super(properties.getStripes());
+        Path path = Path.of(properties.getOffheap().getPath());
+        indexPath = Path.of(path + ".ids");
+        syncInterval = properties.getOffheap().getSyncInterval();
+        syncEachWrite = syncInterval.isZero() || syncInterval.isNegative();
+        recordsPerSegment = (int) Math.max(1, Math.min(Integer.MAX_VALUE / RECORD_SIZE,
+                properties.getOffheap().getSegmentSize().toBytes() / RECORD_SIZE));
+        segmentBytes = (long) recordsPerSegment * RECORD_SIZE;
+        try {
+            if (path.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean fresh = channel.size() < HEADER_SIZE;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (fresh) {
+                header.putLong(MAGIC_OFFSET, MAGIC);
+                header.putInt(FORMAT_OFFSET, FORMAT);
+                header.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+            } else if (header.getLong(MAGIC_OFFSET) != MAGIC || header.getInt(FORMAT_OFFSET) != FORMAT
+                    || header.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+                throw new IllegalStateException(path + " is not an item store of format " + FORMAT);
+            } else if (header.getInt(CLEAN_OFFSET) != 1 || !loadIndex()) {
+                recover(path);
+            } else {
+                log.info("Opened item store {} after a clean shutdown, last id {}", path, maxId());
+            }
+            // from here on a crash leaves the file unclean
+            header.putInt(CLEAN_OFFSET, 0);
+            header.force();
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Cannot open item store " + path, e);
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!syncEachWrite) {
+            taskScheduler.scheduleWithFixedDelay(this::sync, Instant.now().plus(syncInterval), syncInterval);
+        }
+    }
+
+    // the id bitmap saved by the last clean shutdown; false when it is missing or does not fit the header
+    private boolean loadIndex() {
+        try (FileChannel in = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            ByteBuffer last = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (last.hasRemaining() && in.read(last) >= 0) {
+                // reads the saved last id
+            }
+            if (last.hasRemaining() || last.getLong(0) != maxId()) {
+                return false;
+            }
+            storedIds().readFrom(in, maxId());
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not load the id index {}, checking the records instead", indexPath, e);
+            return false;
+        }
+    }
+
+    // after a crash: checks every slot in the file, discards torn ones, indexes the items whose newest
+    // intact slot is live and recounts their statuses. Slots may have reached the disk ahead of the
+    // header, so the last id is raised to the highest id written
+    private void recover(Path path) throws IOException {
+        long[] counts = new long[STATUSES.length];
+        long live = 0;
+        long torn = 0;
+        long lastWritten = 0;
+        long records = (channel.size() - HEADER_SIZE) / segmentBytes * recordsPerSegment;
+        for (long id = 1; id <= records; id++) {
+            ByteBuffer segment = segmentOf(id, true);
+            int record = recordOffset(id);
+            for (int slot = record; slot < record + RECORD_SIZE; slot += SLOT_SIZE) {
+                if (segment.get(slot + STATE) != FREE && segment.getInt(slot + CHECKSUM) != checksum(segment, slot)) {
+                    segment.put(slot + STATE, FREE);
+                    torn++;
+                }
+            }
+            int current = current(segment, record);
+            if (current < 0) {
+                continue;
+            }
+            lastWritten = id;
+            if (segment.get(current + STATE) == LIVE) {
+                byte status = segment.get(current + STATUS);
+                if (status != NULL) {
+                    counts[status]++;
+                }
+                indexStored(id);
+                live++;
+            }
+        }
+        if (lastWritten > maxId()) {
+            LONGS.setVolatile(header, LAST_ID_OFFSET, lastWritten);
+        }
+        for (ItemStatus status : STATUSES) {
+            LONGS.setVolatile(header, COUNTS_OFFSET + status.ordinal() * Long.BYTES, counts[status.ordinal()]);
+        }
+        log.warn("Recovered item store {} after a crash with {} items, {} torn writes discarded", path, live, torn);
+    }
+
+    // forces the written slots and the header to disk; the page cache already survives a crash of the
+    // process, this is what makes them survive a crash of the machine
+    public void sync() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+        header.force();
+    }
+
+    // saves the id bitmap and marks the file clean, so the next start needs no recovery
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        sync();
+        try (FileChannel out = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long last = maxId();
+            out.write(ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(0, last));
+            storedIds().writeTo(out, last);
+            out.force(false);
+        }
+        header.putInt(CLEAN_OFFSET, 1);
+        header.force();
+        channel.close();
+    }
+
+    @Override
+    protected Item read(long id) {
+        ByteBuffer segment = segmentOf(id, false);
+        if (segment == null) {
+            return null;
+        }
+        int slot = current(segment, recordOffset(id));
+        if (slot < 0 || segment.get(slot + STATE) != LIVE) {
+            return null;
+        }
+        byte status = segment.get(slot + STATUS);
+        return new Item(id,
+                readString(segment, slot + NAME),
+                readString(segment, slot + DESCRIPTION),
+                status == NULL ? null : STATUSES[status],
+                readString(segment, slot + EMAIL),
+                segment.getLong(slot + VERSION));
+    }
+
+    @Override
+    protected ItemStatus readStatus(long id) {
+        ByteBuffer segment = segmentOf(id, false);
+        if (segment == null) {
+            return null;
+        }
+        int slot = current(segment, recordOffset(id));
+        if (slot < 0 || segment.get(slot + STATE) != LIVE) {
+            return null;
+        }
+        byte status = segment.get(slot + STATUS);
+        return status == NULL ? null : STATUSES[status];
+    }
+
+    @Override
+    protected boolean contains(long id) {
+        ByteBuffer segment = segmentOf(id, false);
+        if (segment == null) {
+            return false;
+        }
+        int slot = current(segment, recordOffset(id));
+        return slot >= 0 && segment.get(slot + STATE) == LIVE;
+    }
+
+    @Override
+    protected void write(Item item) {
+        long id = item.getId();
+        MappedByteBuffer segment = segmentOf(id, true);
+        int record = recordOffset(id);
+        // encode first, so an oversized field fails before anything is written
+        byte[] name = encode("name", item.getName(), NAME_BYTES);
+        byte[] description = encode("description", item.getDescription(), DESCRIPTION_BYTES);
+        byte[] email = encode("email", item.getEmail(), EMAIL_BYTES);
+        int slot = spare(record, current(segment, record));
+        segment.putLong(slot + VERSION, item.getVersion());
+        segment.put(slot + STATE, LIVE);
+        segment.put(slot + STATUS, item.getStatus() == null ? NULL : (byte) item.getStatus().ordinal());
+        writeString(segment, slot + NAME, name);
+        writeString(segment, slot + DESCRIPTION, description);
+        writeString(segment, slot + EMAIL, email);
+        seal(segment, slot);
+    }
+
+    // a copy of the current slot with the new status and version
+    @Override
+    protected void writeStatus(long id, ItemStatus status, long version) {
+        MappedByteBuffer segment = segmentOf(id, true);
+        int record = recordOffset(id);
+        int current = current(segment, record);
+        int slot = spare(record, current);
+        segment.put(slot, segment, current, SLOT_SIZE);
+        segment.putLong(slot + VERSION, version);
+        segment.put(slot + STATUS, status == null ? NULL : (byte) status.ordinal());
+        seal(segment, slot);
+    }
+
+    @Override
+    protected long readVersion(long id) {
+        ByteBuffer segment = segmentOf(id, true);
+        return segment.getLong(current(segment, recordOffset(id)) + VERSION);
+    }
+
+    // writes a deletion with the next version, a torn one brings the item back as it was
+    @Override
+    protected boolean remove(long id) {
+        MappedByteBuffer segment = segmentOf(id, false);
+        if (segment == null) {
+            return false;
+        }
+        int record = recordOffset(id);
+        int current = current(segment, record);
+        if (current < 0 || segment.get(current + STATE) != LIVE) {
+            return false;
+        }
+        int slot = spare(record, current);
+        segment.putLong(slot + VERSION, segment.getLong(current + VERSION) + 1);
+        segment.put(slot + STATE, DELETED);
+        seal(segment, slot);
+        return true;
+    }
+
+    @Override
+    protected long allocateId() {
+        return (long) LONGS.getAndAdd(header, LAST_ID_OFFSET, 1L) + 1;
+    }
+
+    // highest id handed out so far
+    private long maxId() {
+        return (long) LONGS.getVolatile(header, LAST_ID_OFFSET);
+    }
+
+    @Override
+    protected void addToCount(ItemStatus status, long delta) {
+        if (status != null) {
+            LONGS.getAndAdd(header, COUNTS_OFFSET + status.ordinal() * Long.BYTES, delta);
+        }
+    }
+
+    @Override
+    public long countByStatus(ItemStatus status) {
+        return status == null ? 0 : (long) LONGS.getVolatile(header, COUNTS_OFFSET + status.ordinal() * Long.BYTES);
+    }
+
+    // the slot of the record holding the newest version, -1 if neither was written
+    private static int current(ByteBuffer segment, int record) {
+        int second = record + SLOT_SIZE;
+        if (segment.get(record + STATE) == FREE) {
+            return segment.get(second + STATE) == FREE ? -1 : second;
+        }
+        if (segment.get(second + STATE) == FREE) {
+            return record;
+        }
+        return segment.getLong(second + VERSION) > segment.getLong(record + VERSION) ? second : record;
+    }
+
+    // the slot the next version of the record goes to, the one not holding the current version
+    private static int spare(int record, int current) {
+        return current == record ? record + SLOT_SIZE : record;
+    }
+
+    // checksums a slot once its contents are written and, without a sync interval, forces it to disk
+    private void seal(MappedByteBuffer segment, int slot) {
+        segment.putInt(slot + CHECKSUM, checksum(segment, slot));
+        if (syncEachWrite) {
+            segment.force(slot, SLOT_SIZE);
+        }
+    }
+
+    private static int checksum(ByteBuffer segment, int slot) {
+        CRC32C crc = new CRC32C();
+        crc.update(segment.slice(slot + VERSION, Long.BYTES));
+        crc.update(segment.slice(slot + STATE, SLOT_SIZE - STATE));
+        return (int) crc.getValue();
+    }
+
+    private int recordOffset(long id) {
+        return (int) ((id - 1) % recordsPerSegment) * RECORD_SIZE;
+    }
+
+    // the segment holding id; with create the file is extended (sparse) and mapped up to it
+    private MappedByteBuffer segmentOf(long id, boolean create) {
+        int index = (int) ((id - 1) / recordsPerSegment);
+        MappedByteBuffer[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        if (!create && id > maxId()) {
+            return null;
+        }
+        return mapUpTo(index);
+    }
+
+    private synchronized MappedByteBuffer mapUpTo(int index) {
+        MappedByteBuffer[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        MappedByteBuffer[] grown = Arrays.copyOf(current, index + 1);
+        try {
+            for (int i = current.length; i <= index; i++) {
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * segmentBytes, segmentBytes);
+            }
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Cannot map item store segment " + index, e);
+        }
+        segments = grown;
+        return grown[index];
+    }
+
+    private static byte[] encode(String field, String value, int capacity) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > capacity) {
+            throw new DataIntegrityViolationException(field + " exceeds " + capacity + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void writeString(ByteBuffer segment, int offset, byte[] bytes) {
+        if (bytes == null) {
+            segment.put(offset, NULL);
+            return;
+        }
+        segment.put(offset, (byte) bytes.length);
+        segment.put(offset + 1, bytes);
+    }
+
+    private static String readString(ByteBuffer segment, int offset) {
+        byte length = segment.get(offset);
+        if (length == NULL) {
+            return null;
+        }
+        byte[] bytes = new byte[length & 0xFF];
+        segment.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ProcessingCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+// updatedAt is the heartbeat other nodes judge a run by, so it is stamped and compared on the database
+// clock only: a node whose clock runs ahead never takes a live run of another node for a crashed one
+public interface ProcessingCheckpointRepository extends JpaRepository<ProcessingCheckpoint, String> {
+    List<ProcessingCheckpoint> findByState(ProcessingCheckpoint.State state);
+
+    // the checkpoint of a new run; an INSERT, since save() would stamp the times with the clock of the node
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO processing_checkpoint (run_id, state, resume_after, processed, failed, started_at, updated_at, node_id) "
+            + "VALUES (:runId, :state, :resumeAfter, 0, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, :nodeId)", nativeQuery = true)
+    int insert(@Param("runId") String runId, @Param("state") String state, @Param("resumeAfter") long resumeAfter,
+               @Param("nodeId") String nodeId);
+
+    // one single-row UPDATE per chunk commit
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingCheckpoint c SET c.resumeAfter = :resumeAfter, c.processed = :processed, c.failed = :failed, "
+            + "c.updatedAt = instant WHERE c.runId = :runId")
+    int updateProgress(@Param("runId") String runId, @Param("resumeAfter") long resumeAfter,
+                       @Param("processed") long processed, @Param("failed") long failed);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingCheckpoint c SET c.state = :to, c.updatedAt = instant WHERE c.runId = :runId AND c.state IN :from")
+    int updateState(@Param("runId") String runId, @Param("from") Collection<ProcessingCheckpoint.State> from,
+                    @Param("to") ProcessingCheckpoint.State to);
+
+    // runs of a node still RUNNING when it starts were cut short by its previous shutdown or crash;
+    // rows without a node predate node ids
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingCheckpoint c SET c.state = :to WHERE c.state = :from AND (c.nodeId = :nodeId OR c.nodeId IS NULL)")
+    int updateStatesOfNode(@Param("nodeId") String nodeId, @Param("from") ProcessingCheckpoint.State from,
+                           @Param("to") ProcessingCheckpoint.State to);
+
+    // the heartbeat of a node's running runs, so that other nodes can tell them from crashed ones
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingCheckpoint c SET c.updatedAt = instant WHERE c.state = :state AND c.nodeId = :nodeId")
+    int touch(@Param("nodeId") String nodeId, @Param("state") ProcessingCheckpoint.State state);
+
+    // runs whose node has not beaten for silentNanos; a node id drawn at startup is never seen again after
+    // a crash, so its runs are only interrupted this way
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingCheckpoint c SET c.state = :to WHERE c.state = :from AND c.updatedAt < instant - :silentNanos nanosecond")
+    int updateStatesSilentFor(@Param("silentNanos") long silentNanos, @Param("from") ProcessingCheckpoint.State from,
+                              @Param("to") ProcessingCheckpoint.State to);
+}
@@ -0,0 +1,20 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ProcessingFailure;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ProcessingFailureRepository extends JpaRepository<ProcessingFailure, Long> {
+    // keyset page over the failed items, so a retry reads only them and never the item table
+    @Query("SELECT f.itemId FROM ProcessingFailure f WHERE f.itemId > :afterId ORDER BY f.itemId")
+    List<Long> findItemIdsAfter(@Param("afterId") long afterId, Pageable page);
+
+    // which of a page of item ids are on record as failed
+    @Query("SELECT f.itemId FROM ProcessingFailure f WHERE f.itemId IN :itemIds")
+    List<Long> findItemIdsIn(@Param("itemIds") Collection<Long> itemIds);
+}
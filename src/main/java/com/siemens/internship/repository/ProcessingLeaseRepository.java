@@ -0,0 +1,72 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.ProcessingLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+// every write is a single-row conditional UPDATE, atomic on its own: of several nodes claiming the same
+// range exactly one sees an update count of 1, the others skip it, as SELECT ... FOR UPDATE SKIP LOCKED would.
+// Lease times are set and compared on the database clock, a node whose clock runs ahead never sees the
+// live lease of another node as expired
+public interface ProcessingLeaseRepository extends JpaRepository<ProcessingLease, ProcessingLease.Key> {
+    // the database clock all lease times are taken from, so the clocks of the nodes never come in
+    @Query("SELECT instant")
+    Instant currentInstant();
+
+    // a range is claimed when it is free (or its lease expired) and no node completed it since the claiming run started
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingLease l SET l.nodeId = :nodeId, l.expiresAt = instant + :ttlNanos nanosecond, l.claimedAt = instant "
+            + "WHERE l.scope = :scope AND l.rangeStart = :rangeStart AND (l.nodeId IS NULL OR l.expiresAt < instant) "
+            + "AND (l.completedAt IS NULL OR l.completedAt < :since)")
+    int claim(@Param("scope") ProcessingLease.Scope scope, @Param("rangeStart") long rangeStart, @Param("nodeId") String nodeId,
+              @Param("ttlNanos") long ttlNanos, @Param("since") Instant since);
+
+    // creates the free row of a range seen for the first time, unless it exists; two nodes racing on it can
+    // still meet as a duplicate key. An INSERT, since save() would merge over the row of the other node
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO processing_lease (scope, range_start) SELECT :scope, :rangeStart WHERE NOT EXISTS "
+            + "(SELECT 1 FROM processing_lease WHERE scope = :scope AND range_start = :rangeStart)", nativeQuery = true)
+    int insert(@Param("scope") String scope, @Param("rangeStart") long rangeStart);
+
+    // the heartbeat; 0 means another node has taken the range over
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingLease l SET l.expiresAt = instant + :ttlNanos nanosecond "
+            + "WHERE l.scope = :scope AND l.rangeStart = :rangeStart AND l.nodeId = :nodeId")
+    int renew(@Param("scope") ProcessingLease.Scope scope, @Param("rangeStart") long rangeStart,
+              @Param("nodeId") String nodeId, @Param("ttlNanos") long ttlNanos);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingLease l SET l.nodeId = NULL, l.expiresAt = NULL, l.completedAt = instant "
+            + "WHERE l.scope = :scope AND l.rangeStart = :rangeStart AND l.nodeId = :nodeId")
+    int complete(@Param("scope") ProcessingLease.Scope scope, @Param("rangeStart") long rangeStart, @Param("nodeId") String nodeId);
+
+    // gives a range back unfinished, the next node claiming it starts it over
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingLease l SET l.nodeId = NULL, l.expiresAt = NULL "
+            + "WHERE l.scope = :scope AND l.rangeStart = :rangeStart AND l.nodeId = :nodeId")
+    int release(@Param("scope") ProcessingLease.Scope scope, @Param("rangeStart") long rangeStart, @Param("nodeId") String nodeId);
+
+    // leases left behind by a previous incarnation of the node
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProcessingLease l SET l.nodeId = NULL, l.expiresAt = NULL WHERE l.nodeId = :nodeId")
+    int releaseAll(@Param("nodeId") String nodeId);
+
+    // rows of ranges nobody claimed for idleNanos, and leases whose node stopped renewing them as long ago;
+    // a row just inserted and not claimed yet has no claimedAt and stays
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProcessingLease l WHERE (l.nodeId IS NULL AND COALESCE(l.completedAt, l.claimedAt) < instant - :idleNanos nanosecond) "
+            + "OR l.expiresAt < instant - :idleNanos nanosecond")
+    int deleteIdle(@Param("idleNanos") long idleNanos);
+}
@@ -0,0 +1,348 @@
+package com.siemens.internship.repository;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// common logic of the stores that keep items themselves, keyed by a primitive long id.
+// Ids are handed out densely from 1 by the store and the ids in use are kept in a bitmap, so keyset
+// scans jump from id to id in order and never probe deleted ones. Writers of an id hold the write lock
+// of its stripe (id & mask), readers the read lock, so threads working on different ids rarely meet
+abstract class StripedItemStore implements ItemStore {
+    private final ReentrantReadWriteLock[] locks;
+    private final int mask;
+    private final IdBitmap storedIds = new IdBitmap();
+
+    protected StripedItemStore(int stripes) {
+        // round up to a power of two so the stripe is a mask of the id
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantReadWriteLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        mask = size - 1;
+    }
+
+    // storage primitives, called with the stripe lock of id held (read lock for the read methods)
+
+    // a fresh Item for the stored id, null if there is none
+    protected abstract Item read(long id);
+
+    // status of the stored id without building an Item; null if there is none or its status is null
+    protected abstract ItemStatus readStatus(long id);
+
+    protected abstract boolean contains(long id);
+
+    // stores item under item.getId(), the version is already set by the caller; the store may keep the instance
+    protected abstract void write(Item item);
+
+    // changes only the status and version of an existing id
+    protected abstract void writeStatus(long id, ItemStatus status, long version);
+
+    protected abstract long readVersion(long id);
+
+    // returns false if there was nothing to remove
+    protected abstract boolean remove(long id);
+
+    // next id, never handed out twice
+    protected abstract long allocateId();
+
+    // per-status item counters, kept up to date by the write paths below
+    protected abstract void addToCount(ItemStatus status, long delta);
+
+    protected final int stripeCount() {
+        return locks.length;
+    }
+
+    // the stripe whose lock guards id, stores may partition their own data the same way
+    protected final int stripeOf(long id) {
+        return (int) (id & mask);
+    }
+
+    // for stores that reopen persisted items: adds a stored id to the scan index
+    protected final void indexStored(long id) {
+        storedIds.add(id);
+    }
+
+    // for stores that persist the scan index instead of rebuilding it when they reopen
+    protected final IdBitmap storedIds() {
+        return storedIds;
+    }
+
+    private Lock readLock(long id) {
+        return locks[stripeOf(id)].readLock();
+    }
+
+    private Lock writeLock(long id) {
+        return locks[stripeOf(id)].writeLock();
+    }
+
+    @Override
+    public Optional<Item> findById(long id) {
+        Lock lock = readLock(id);
+        lock.lock();
+        try {
+            return Optional.ofNullable(read(id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Item> findAll() {
+        List<Item> items = new ArrayList<>();
+        forEach(0L, items::add);
+        return items;
+    }
+
+    @Override
+    public List<Item> findPage(long afterId, int limit) {
+        List<Item> items = new ArrayList<>(Math.min(limit, 1024));
+        for (long id = storedIds.next(afterId); id > 0 && items.size() < limit; id = storedIds.next(id)) {
+            findById(id).ifPresent(items::add);
+        }
+        return items;
+    }
+
+    @Override
+    public void forEach(long afterId, Consumer<Item> sink) {
+        for (long id = storedIds.next(afterId); id > 0; id = storedIds.next(id)) {
+            findById(id).ifPresent(sink);
+        }
+    }
+
+    @Override
+    public List<Item> findAllById(Collection<Long> ids) {
+        List<Item> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null) {
+                findById(id).ifPresent(items::add);
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public List<Long> findIdsByStatusAfter(ItemStatus status, long afterId, int limit) {
+        List<Long> found = new ArrayList<>(Math.min(limit, 1024));
+        for (long id = storedIds.next(afterId); id > 0 && found.size() < limit; id = storedIds.next(id)) {
+            Lock lock = readLock(id);
+            lock.lock();
+            try {
+                if (readStatus(id) == status) {
+                    found.add(id);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return found;
+    }
+
+    // these stores keep no secondary indexes, a search is a scan: in id order it stops at the first full
+    // page, in name order every match is seen once and a bounded heap keeps the smallest limit of them
+    @Override
+    public List<Item> search(ItemQuery query) {
+        if (query.order() == ItemQuery.Order.ID) {
+            List<Item> items = new ArrayList<>(Math.min(query.limit(), 1024));
+            for (long id = storedIds.next(query.afterId()); id > 0 && items.size() < query.limit(); id = storedIds.next(id)) {
+                findById(id).filter(query::matches).ifPresent(items::add);
+            }
+            return items;
+        }
+        PriorityQueue<Item> smallest = new PriorityQueue<>(ItemQuery.BY_NAME.reversed());
+        forEach(0L, item -> {
+            if (query.matches(item)) {
+                smallest.add(item);
+                if (smallest.size() > query.limit()) {
+                    smallest.poll();
+                }
+            }
+        });
+        List<Item> items = new ArrayList<>(smallest);
+        items.sort(ItemQuery.BY_NAME);
+        return items;
+    }
+
+    // same semantics as a JPA merge: an unknown or missing id is a new item, a known one is overwritten
+    // provided the caller saw its current version
+    @Override
+    public Item save(Item item) {
+        if (item.getId() == null || item.getId() <= 0) {
+            return insert(item);
+        }
+        long id = item.getId();
+        Lock lock = writeLock(id);
+        lock.lock();
+        try {
+            Item current = read(id);
+            if (current != null) {
+                if (current.getVersion() != item.getVersion()) {
+                    throw new OptimisticLockingFailureException("Item " + id + " is at version " + current.getVersion() + ", got " + item.getVersion());
+                }
+                return overwrite(current, item);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return insert(item);
+    }
+
+    @Override
+    public Optional<Item> replace(long id, Item changes, Long expectedVersion) {
+        return update(id, expectedVersion, item -> {
+            item.setName(changes.getName());
+            item.setDescription(changes.getDescription());
+            item.setStatus(changes.getStatus());
+            item.setEmail(changes.getEmail());
+        });
+    }
+
+    @Override
+    public Optional<Item> update(long id, Long expectedVersion, Consumer<Item> change) {
+        Lock lock = writeLock(id);
+        lock.lock();
+        try {
+            Item current = read(id);
+            if (current == null) {
+                return Optional.empty();
+            }
+            if (expectedVersion != null && current.getVersion() != expectedVersion) {
+                throw new OptimisticLockingFailureException("Item " + id + " is at version " + current.getVersion() + ", expected " + expectedVersion);
+            }
+            Item changed = current.copy();
+            change.accept(changed);
+            return Optional.of(overwrite(current, changed));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(long id) {
+        delete(id);
+    }
+
+    @Override
+    public List<Item> insertAll(List<Item> items) {
+        List<Item> inserted = new ArrayList<>(items.size());
+        for (Item item : items) {
+            inserted.add(insert(item));
+        }
+        return inserted;
+    }
+
+    @Override
+    public Set<Long> replaceAll(List<Item> items) {
+        return replaceAll(items, false);
+    }
+
+    @Override
+    public Set<Long> replaceAllIfVersion(List<Item> items) {
+        return replaceAll(items, true);
+    }
+
+    private Set<Long> replaceAll(List<Item> items, boolean ifVersion) {
+        Set<Long> replaced = new HashSet<>();
+        for (Item item : items) {
+            try {
+                if (item.getId() != null && replace(item.getId(), item, ifVersion ? item.getVersion() : null).isPresent()) {
+                    replaced.add(item.getId());
+                }
+            } catch (OptimisticLockingFailureException e) {
+                // changed since it was read, skipped
+            }
+        }
+        return replaced;
+    }
+
+    @Override
+    public Set<Long> deleteAll(Collection<Long> ids) {
+        Set<Long> deleted = new HashSet<>();
+        for (Long id : ids) {
+            if (id != null && delete(id)) {
+                deleted.add(id);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public Set<Long> updateStatus(Collection<Long> ids, ItemStatus from, ItemStatus to) {
+        Set<Long> updated = new HashSet<>();
+        for (Long id : ids) {
+            if (id == null) {
+                continue;
+            }
+            Lock lock = writeLock(id);
+            lock.lock();
+            try {
+                ItemStatus current = readStatus(id);
+                boolean exists = current != null || contains(id);
+                if (exists && current != to && (from == null || current == from)) {
+                    writeStatus(id, to, readVersion(id) + 1);
+                    addToCount(current, -1);
+                    addToCount(to, 1);
+                    updated.add(id);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return updated;
+    }
+
+    private Item insert(Item item) {
+        Item stored = item.copy();
+        stored.setId(allocateId());
+        stored.setVersion(0L);
+        Lock lock = writeLock(stored.getId());
+        lock.lock();
+        try {
+            write(stored);
+            addToCount(stored.getStatus(), 1);
+            storedIds.add(stored.getId());
+        } finally {
+            lock.unlock();
+        }
+        return stored.copy();
+    }
+
+    // caller holds the write lock of current's id
+    private Item overwrite(Item current, Item changes) {
+        Item stored = changes.copy();
+        stored.setId(current.getId());
+        stored.setVersion(current.getVersion() + 1);
+        write(stored);
+        addToCount(current.getStatus(), -1);
+        addToCount(stored.getStatus(), 1);
+        return stored.copy();
+    }
+
+    private boolean delete(long id) {
+        Lock lock = writeLock(id);
+        lock.lock();
+        try {
+            ItemStatus status = readStatus(id);
+            if (!remove(id)) {
+                return false;
+            }
+            storedIds.remove(id);
+            addToCount(status, -1);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.metrics.ItemMetrics;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// set-based processing engine: walks UNPROCESSED rows in keyset-paginated chunks and moves
+// each chunk to PROCESSED with a single bulk UPDATE committed in its own transaction (JPA store),
+// so the number of round trips grows with the number of chunks and not with the number of rows.
+// When ItemProcessor stages are registered each chunk runs through a ProcessingPipeline instead, on the
+// same workers and under the same overload policy
+@Slf4j
+@Component
+public class ItemBatchProcessor {
+    @Autowired
+    private ItemStore itemStore;
+
+    // the bulk UPDATE bypasses the entity API, so the cached copies of a chunk are dropped explicitly
+    @Autowired
+    private ItemCache itemCache;
+
+    // bounded by the datasource pool size, see AsyncConfig
+    @Autowired
+    @Qualifier("processingExecutor")
+    private Executor processingExecutor;
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    // stages of the processing pipeline in @Order order, none by default
+    @Autowired(required = false)
+    private List<ItemProcessor> processors = List.of();
+
+    // stages may rename items
+    @Autowired
+    private NamePrefixIndex namePrefixIndex;
+
+    // every chunk records the items it moved
+    @Autowired
+    private ItemChangeLog changeLog;
+
+    @Autowired
+    private ItemMetrics metrics;
+
+    // summary of a finished run; shed chunks were skipped under overload and stay UNPROCESSED
+    public record BatchResult(long processed, long failed, long shed, long chunks) {
+        public static final BatchResult EMPTY = new BatchResult(0, 0, 0, 0);
+
+        public BatchResult plus(BatchResult other) {
+            return new BatchResult(processed + other.processed, failed + other.failed, shed + other.shed, chunks + other.chunks);
+        }
+    }
+
+    // where a run takes its work from: the next ids after afterId in ascending order, at most limit of them
+    @FunctionalInterface
+    public interface IdSource {
+        List<Long> nextIds(long afterId, int limit);
+    }
+
+    // callbacks for a running batch; chunk callbacks may be invoked concurrently from several worker threads
+    public interface ChunkListener {
+        // called on the reading thread, in id order, before the ids are handed to the workers; every id
+        // is reported once more by one of the callbacks below when it is done
+        default void onChunkStarted(List<Long> ids) {
+        }
+
+        // called after the chunk's transaction has committed, updated is the number of rows actually changed
+        default void onChunkCommitted(List<Long> ids, int updated) {
+        }
+
+        // called when the chunk's transaction rolled back
+        default void onChunkFailed(List<Long> ids, RuntimeException e) {
+        }
+
+        // called when the chunk was dropped by the SHED overload policy, its rows are left for the next run
+        default void onChunkShed(List<Long> ids) {
+        }
+
+        // called on the reading thread when the ids in (afterId, lastId] are left to another node, see
+        // ProcessingLeases; they are neither started nor reported by this run
+        default void onRangeSkipped(long afterId, long lastId) {
+        }
+
+        // polled before each chunk is read, returning true stops the run after the in-flight chunks
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+
+    // processes every UNPROCESSED item, reporting each chunk to the listener
+    public BatchResult processAll(ChunkListener listener) throws InterruptedException {
+        return process(unprocessed(), 0L, listener);
+    }
+
+    // the default source: UNPROCESSED items by the (status, id) index
+    public IdSource unprocessed() {
+        return (afterId, limit) -> itemStore.findIdsByStatusAfter(ItemStatus.UNPROCESSED, afterId, limit);
+    }
+
+    // processes the items the source yields after afterId; ids are read lazily one page at a time and
+    // at most maxInFlightChunks() chunks are held in memory, so the footprint is O(in-flight).
+    // Only UNPROCESSED items ever move, so ids of other items in the source are harmless
+    public BatchResult process(IdSource source, long afterId, ChunkListener listener) throws InterruptedException {
+        return process(source, afterId, listener, properties.getParallelism());
+    }
+
+    // the same with the number of chunks written at once given by the caller, e.g. an adaptive limit;
+    // pipeline stages admit at most their configured concurrency of those chunks
+    public BatchResult process(IdSource source, long afterId, ChunkListener listener, int parallelism) throws InterruptedException {
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        int inFlight = maxInFlightChunks(chunkSize, parallelism);
+        Run run = new Run(listener, new Semaphore(inFlight));
+        ProcessingPipeline pipeline = processors.isEmpty() ? null
+                : new ProcessingPipeline(processors, properties, metrics, listener, this::persistProcessed);
+
+        while (!listener.isCancelled()) {
+            List<Long> ids = source.nextIds(afterId, chunkSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            // the next page starts after the last id of this one, so pages never overlap
+            // even while earlier chunks are still being updated
+            afterId = ids.get(ids.size() - 1);
+            long read = System.nanoTime();
+            run.chunks++;
+            if (pipeline == null) {
+                listener.onChunkStarted(ids);
+                run.submit(ids, () -> run.write(ids, read));
+            } else {
+                // the stages work on whole items; skip those a concurrent writer processed since the ids were read
+                List<Item> items = itemStore.findAllById(ids).stream()
+                        .filter(item -> item.getStatus() == ItemStatus.UNPROCESSED)
+                        .sorted(Comparator.comparing(Item::getId))
+                        .toList();
+                List<Long> started = items.stream().map(Item::getId).toList();
+                listener.onChunkStarted(ids);
+                // ids that are no longer UNPROCESSED or are gone have nothing left to do; they are settled
+                // at once, like the rows a bulk UPDATE leaves alone, so checkpoints and failure records
+                // see every id of the source again
+                Set<Long> pending = Set.copyOf(started);
+                List<Long> settled = ids.stream().filter(id -> !pending.contains(id)).toList();
+                if (!settled.isEmpty()) {
+                    listener.onChunkCommitted(settled, 0);
+                }
+                if (!started.isEmpty()) {
+                    run.submit(started, () -> run.add(pipeline.process(items, read)));
+                }
+            }
+
+            // a short page means we reached the end of the table
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+
+        // wait for the chunks that are still in flight
+        run.permits.acquire(inFlight);
+        run.permits.release(inFlight);
+
+        return new BatchResult(run.processed.get(), run.failed.get(), run.shed.get(), run.chunks);
+    }
+
+    // last step of the pipeline: a batch of processed items is written in one store call, guarded by
+    // the versions the items were read with, so an item changed meanwhile by a client is not overwritten
+    private Set<Long> persistProcessed(List<Item> batch) {
+        for (Item item : batch) {
+            item.setStatus(ItemStatus.PROCESSED);
+        }
+        Set<Long> written = withConflictRetry(() -> changeLog.write(() -> itemStore.replaceAllIfVersion(batch),
+                ItemBatchProcessor::processed), batch.get(0).getId());
+        itemCache.invalidateAll(batch.stream().map(Item::getId).toList());
+        batch.stream().filter(item -> written.contains(item.getId())).forEach(namePrefixIndex::put);
+        return written;
+    }
+
+    private static List<ItemChange> processed(Set<Long> ids) {
+        return ids.stream().map(id -> ItemChange.of(id, ItemChange.Type.PROCESSED, ItemStatus.PROCESSED)).toList();
+    }
+
+    // lock and version conflicts with concurrent PUTs are transient, so the write is retried with
+    // exponential backoff a bounded number of times before it is reported as failed
+    private <T> T withConflictRetry(Supplier<T> write, long firstId) {
+        int attempts = Math.max(1, properties.getConflictRetries());
+        long backoffMillis = properties.getConflictBackoff().toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                log.debug("Conflict on chunk starting at ID {}, retry {} of {}", firstId, attempt, attempts - 1);
+                try {
+                    Thread.sleep(backoffMillis << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // parallelism bounded further by the in-flight item budget, never below one chunk
+    private int maxInFlightChunks(int chunkSize, int parallelism) {
+        parallelism = Math.max(1, parallelism);
+        if (properties.getMaxInFlightItems() <= 0) {
+            return parallelism;
+        }
+        return Math.max(1, Math.min(parallelism, properties.getMaxInFlightItems() / chunkSize));
+    }
+
+    // state of one processAll call
+    private final class Run {
+        private final ChunkListener listener;
+        private final Semaphore permits;
+        private final ProcessingProperties.OverloadPolicy policy = properties.getOverloadPolicy();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong shed = new AtomicLong();
+        private long chunks;
+
+        private Run(ChunkListener listener, Semaphore permits) {
+            this.listener = listener;
+            this.permits = permits;
+        }
+
+        // hands the chunk's work to a worker; when all workers are busy (or the executor rejects it)
+        // the overload policy decides whether to wait, run it on the reader thread, or drop it
+        private void submit(List<Long> ids, Runnable work) throws InterruptedException {
+            if (!permits.tryAcquire()) {
+                switch (policy) {
+                    case WAIT -> permits.acquire();
+                    case CALLER_RUNS -> {
+                        work.run();
+                        return;
+                    }
+                    case SHED -> {
+                        shed(ids);
+                        return;
+                    }
+                }
+            }
+            try {
+                processingExecutor.execute(() -> {
+                    try {
+                        work.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                if (policy == ProcessingProperties.OverloadPolicy.SHED) {
+                    shed(ids);
+                } else {
+                    work.run();
+                }
+            }
+        }
+
+        // counts a chunk the pipeline finished, it has reported the chunk to the listener itself
+        private void add(BatchResult chunk) {
+            processed.addAndGet(chunk.processed());
+            failed.addAndGet(chunk.failed());
+        }
+
+        // read is when the run read the ids, for the per-item latency
+        private void write(List<Long> ids, long read) {
+            long start = System.nanoTime();
+            try {
+                // every chunk is its own unit of work in the store (a fresh transaction for JPA), together
+                // with the change log entries of the items it moved
+                int count = withConflictRetry(() -> changeLog.write(
+                        () -> itemStore.updateStatus(ids, ItemStatus.UNPROCESSED, ItemStatus.PROCESSED),
+                        ItemBatchProcessor::processed), ids.get(0)).size();
+                itemCache.invalidateAll(ids);
+                processed.addAndGet(count);
+                metrics.recordChunk(start, count);
+                metrics.recordItems(read, count);
+                listener.onChunkCommitted(ids, count);
+            } catch (RuntimeException e) {
+                failed.addAndGet(ids.size());
+                metrics.recordChunkFailure(ids.size());
+                listener.onChunkFailed(ids, e);
+                log.error("Failed to process chunk of {} items starting at ID {}", ids.size(), ids.get(0), e);
+            }
+        }
+
+        private void shed(List<Long> ids) {
+            shed.addAndGet(ids.size());
+            metrics.recordChunkShed(ids.size());
+            listener.onChunkShed(ids);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.exception.BadRequestException;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// bulk create/update/delete: rows are validated one by one, the valid ones are written in chunks
+// of hibernate.jdbc.batch_size; the JPA store turns each chunk into a single JDBC batch committed in
+// its own transaction. A failing chunk is reported per row and does not roll back the chunks before it.
+// A body that turns malformed partway ends the request at that element: the rows before it are still
+// written, and the results end with a MALFORMED row at the position where reading failed
+@Service
+public class ItemBulkService {
+    public enum Outcome {
+        CREATED, UPDATED, DELETED, NOT_FOUND, INVALID, FAILED, MALFORMED
+    }
+
+    // result of one input row, index is its zero-based position in the request
+    public record RowResult(int index, Long id, Outcome outcome, List<String> errors) {
+        static RowResult of(int index, Long id, Outcome outcome) {
+            return new RowResult(index, id, outcome, List.of());
+        }
+    }
+
+    // moves the given items to status "to"; with "from" set only items currently in that status move
+    public record StatusTransition(List<Long> ids, ItemStatus from, ItemStatus to) {
+    }
+
+    // number of ids in the request and of rows whose status actually changed
+    public record TransitionResult(int requested, int updated) {
+    }
+
+    // an input row together with its position in the request
+    private record Row<T>(int index, T value) {
+    }
+
+    @Autowired
+    private ItemStore itemStore;
+
+    @Autowired
+    private ItemValidator itemValidator;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private NamePrefixIndex namePrefixIndex;
+
+    // each chunk is written together with its change log entries
+    @Autowired
+    private ItemChangeLog changeLog;
+
+    // chunks match the JDBC batch size, so one flush sends exactly one batch per statement type
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public List<RowResult> createAll(Iterator<Item> items) {
+        return inChunks(items, this::validate, chunk -> {
+            // the store returns the inserted items in input order, with their new ids
+            List<Item> inserted = changeLog.write(() -> itemStore.insertAll(chunk.stream().map(Row::value).toList()),
+                    written -> written.stream().map(item -> ItemChange.of(item.getId(), ItemChange.Type.CREATED, item.getStatus())).toList());
+            List<RowResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(RowResult.of(chunk.get(i).index(), inserted.get(i).getId(), Outcome.CREATED));
+                namePrefixIndex.put(inserted.get(i));
+            }
+            return results;
+        });
+    }
+
+    public List<RowResult> updateAll(Iterator<Item> items) {
+        return inChunks(items, item -> {
+            List<String> errors = validate(item);
+            if (item.getId() == null) {
+                errors.add("id must not be null");
+            }
+            return errors;
+        }, chunk -> {
+            Set<Long> replaced = changeLog.write(() -> itemStore.replaceAll(chunk.stream().map(Row::value).toList()),
+                    written -> chunk.stream().map(Row::value).filter(item -> written.contains(item.getId()))
+                            .map(item -> ItemChange.of(item.getId(), ItemChange.Type.UPDATED, item.getStatus())).toList());
+            chunk.stream().map(Row::value).filter(item -> replaced.contains(item.getId())).forEach(namePrefixIndex::put);
+            return chunk.stream()
+                    .map(row -> RowResult.of(row.index(), row.value().getId(),
+                            replaced.contains(row.value().getId()) ? Outcome.UPDATED : Outcome.NOT_FOUND))
+                    .toList();
+        });
+    }
+
+    public List<RowResult> deleteAll(Iterator<Long> ids) {
+        return inChunks(ids, id -> id == null || id <= 0 ? new ArrayList<>(List.of("id must be positive")) : new ArrayList<>(), chunk -> {
+            Set<Long> deleted = changeLog.write(() -> itemStore.deleteAll(chunk.stream().map(Row::value).toList()),
+                    gone -> gone.stream().map(id -> ItemChange.of(id, ItemChange.Type.DELETED, null)).toList());
+            namePrefixIndex.removeAll(deleted);
+            return chunk.stream()
+                    .map(row -> RowResult.of(row.index(), row.value(),
+                            deleted.contains(row.value()) ? Outcome.DELETED : Outcome.NOT_FOUND))
+                    .toList();
+        });
+    }
+
+    // set-based status change: one store call (a single UPDATE ... WHERE id IN for JPA) per chunk
+    public TransitionResult transitionStatus(StatusTransition transition) {
+        if (transition.ids() == null || transition.to() == null) {
+            throw new BadRequestException("ids and to must not be null");
+        }
+        int updated = 0;
+        for (int from = 0; from < transition.ids().size(); from += batchSize) {
+            List<Long> chunk = transition.ids().subList(from, Math.min(from + batchSize, transition.ids().size()));
+            updated += changeLog.write(() -> itemStore.updateStatus(chunk, transition.from(), transition.to()),
+                    moved -> moved.stream().map(id -> ItemChange.of(id, ItemChange.Type.UPDATED, transition.to())).toList()).size();
+            itemCache.invalidateAll(chunk);
+        }
+        return new TransitionResult(transition.ids().size(), updated);
+    }
+
+    // same "field message" format as the GlobalExceptionHandler uses for single items
+    private List<String> validate(Item item) {
+        return new ArrayList<>(itemValidator.validateItem(item));
+    }
+
+    // true when the body could not be read to its end, see Outcome.MALFORMED
+    public static boolean isMalformed(List<RowResult> results) {
+        return !results.isEmpty() && results.get(results.size() - 1).outcome() == Outcome.MALFORMED;
+    }
+
+    private <T> List<RowResult> inChunks(Iterator<T> rows, Function<T, List<String>> rowValidator,
+                                         Function<List<Row<T>>, List<RowResult>> chunkWriter) {
+        List<RowResult> results = new ArrayList<>();
+        List<Row<T>> chunk = new ArrayList<>(batchSize);
+        RowResult malformed = null;
+        int index = 0;
+        while (true) {
+            T value;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                value = rows.next();
+            } catch (BadRequestException e) {
+                malformed = new RowResult(index, null, Outcome.MALFORMED, List.of(String.valueOf(e.getMessage())));
+                break;
+            }
+            List<String> errors = rowValidator.apply(value);
+            if (!errors.isEmpty()) {
+                results.add(new RowResult(index, null, Outcome.INVALID, errors));
+            } else {
+                chunk.add(new Row<>(index, value));
+                if (chunk.size() >= batchSize) {
+                    writeChunk(chunk, chunkWriter, results);
+                }
+            }
+            index++;
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, chunkWriter, results);
+        }
+        results.sort(Comparator.comparingInt(RowResult::index));
+        if (malformed != null) {
+            results.add(malformed);
+        }
+        return results;
+    }
+
+    private <T> void writeChunk(List<Row<T>> chunk, Function<List<Row<T>>, List<RowResult>> chunkWriter,
+                                List<RowResult> results) {
+        try {
+            List<RowResult> written = chunkWriter.apply(chunk);
+            results.addAll(written);
+            // updated and deleted rows must not be served stale from the cache
+            itemCache.invalidateAll(written.stream().map(RowResult::id).toList());
+        } catch (RuntimeException e) {
+            for (Row<T> row : chunk) {
+                results.add(new RowResult(row.index(), null, Outcome.FAILED, List.of(String.valueOf(e.getMessage()))));
+            }
+        }
+        chunk.clear();
+    }
+}
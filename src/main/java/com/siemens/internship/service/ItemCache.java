@@ -0,0 +1,91 @@
+package com.siemens.internship.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.siemens.internship.config.CacheProperties;
+import com.siemens.internship.model.Item;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+// read-through cache of items keyed by id, bounded by size and TTL;
+// entries are private copies and every read returns a fresh copy, so callers mutating
+// the returned entity (e.g. the processing engine) can never change what is cached
+@Component
+public class ItemCache {
+    // hit/miss/eviction counters exposed to clients
+    public record Stats(long hits, long misses, long evictions, double hitRate, long size) {
+    }
+
+    private final boolean enabled;
+    private final Cache<Long, Item> cache;
+
+    public ItemCache(CacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    // returns the cached item or loads it; concurrent misses on the same id wait for a single load
+    // instead of all hitting the database, and absent items are not cached
+    public Optional<Item> get(Long id, Function<Long, Optional<Item>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        Item cached = cache.get(id, key -> loader.apply(key).map(Item::copy).orElse(null));
+        return Optional.ofNullable(cached).map(Item::copy);
+    }
+
+    // the cached item, empty on a miss without loading it
+    public Optional<Item> getIfPresent(Long id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(id)).map(Item::copy);
+    }
+
+    // write-through: replaces the entry with the state that was just persisted
+    public void put(Item item) {
+        if (enabled && item.getId() != null) {
+            cache.put(item.getId(), item.copy());
+        }
+    }
+
+    // put for a write inside a transaction: the entry is replaced once the transaction commits and never
+    // on rollback, so readers cannot see uncommitted state. Without a transaction it is a plain put
+    public void putAfterCommit(Item item) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(item);
+            return;
+        }
+        Item committed = item.copy();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(committed);
+            }
+        });
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    // used after bulk statements that bypass the entity API
+    public void invalidateAll(Collection<Long> ids) {
+        cache.invalidateAll(ids);
+    }
+
+    public Stats stats() {
+        CacheStats stats = cache.stats();
+        return new Stats(stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate(), cache.estimatedSize());
+    }
+}
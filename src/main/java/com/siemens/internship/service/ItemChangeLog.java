@@ -0,0 +1,129 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ChangeFeedProperties;
+import com.siemens.internship.metrics.ItemMetrics;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.repository.ItemChangeRepository;
+import com.siemens.internship.model.ItemChangeSequence;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// transactional outbox of item changes, read back as a change feed. Every write of an item goes through
+// write(), which runs the store write and the INSERT of the changes it made in one transaction, so with
+// the JPA store a change is recorded exactly when it commits. The memory and offheap stores are not
+// transactional, with them a change is recorded right after the store applied it.
+// The seqs of a write are taken from the ItemChangeSequence row as its last step; the row stays locked
+// until the write commits, so writes recording changes commit one after the other in seq order and a
+// reader that has seen a seq can never later find a lower one
+@Slf4j
+@Component
+public class ItemChangeLog {
+    // the statements join the transaction of the JPA transaction manager like any repository call. The
+    // time of a change comes from the database, the one clock every node shares, so retention means the
+    // same on all of them
+    private static final String INSERT = "INSERT INTO item_change (seq, item_id, type, status, changed_at) VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    // advances the sequence row and reads the new value back in one round trip; the row lock is held to commit
+    private static final String NEXT_SEQ = "SELECT last_seq FROM FINAL TABLE "
+            + "(UPDATE item_change_sequence SET last_seq = last_seq + ? WHERE id = " + ItemChangeSequence.ID + ")";
+
+    // the row of a database the schema was created for by Hibernate, starting after any changes on record
+    private static final String CREATE_SEQUENCE = "INSERT INTO item_change_sequence (id, last_seq) SELECT "
+            + ItemChangeSequence.ID + ", (SELECT COALESCE(MAX(seq), 0) FROM item_change) "
+            + "WHERE NOT EXISTS (SELECT 1 FROM item_change_sequence)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemChangeRepository changeRepository;
+
+    @Autowired
+    private ChangeFeedProperties properties;
+
+    @Autowired
+    private ItemMetrics metrics;
+
+    // Spring's shared scheduler, shut down by the context
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @PostConstruct
+    void start() {
+        try {
+            jdbcTemplate.update(CREATE_SEQUENCE);
+        } catch (DataIntegrityViolationException e) {
+            // another node created the row at the same moment
+        }
+        Duration interval = properties.getCleanupInterval();
+        taskScheduler.scheduleWithFixedDelay(this::purge, Instant.now().plus(interval), interval);
+    }
+
+    // runs write and records the changes it reports in the same transaction; a failing write records nothing
+    @Transactional
+    public <T> T write(Supplier<T> write, Function<T, Collection<ItemChange>> changes) {
+        T result = write.get();
+        record(changes.apply(result));
+        return result;
+    }
+
+    // one statement for the seqs and one JDBC batch for all changes; the last step of the transaction, so
+    // the sequence row is only held from here to the commit
+    @Transactional
+    public void record(Collection<ItemChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        // timed by hand, JdbcTemplate statements are not repository invocations
+        long start = System.nanoTime();
+        Long last;
+        try {
+            last = jdbcTemplate.queryForObject(NEXT_SEQ, Long.class, changes.size());
+        } finally {
+            metrics.recordQuery(ItemMetrics.Query.CHANGE_LOG_NEXT_SEQ, start);
+        }
+        AtomicLong seq = new AtomicLong(last - changes.size());
+        start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT, changes, changes.size(), (statement, change) -> {
+                statement.setLong(1, seq.incrementAndGet());
+                statement.setLong(2, change.getItemId());
+                statement.setString(3, change.getType().name());
+                statement.setString(4, change.getStatus() == null ? null : change.getStatus().name());
+            });
+        } finally {
+            metrics.recordQuery(ItemMetrics.Query.CHANGE_LOG_INSERT, start);
+        }
+    }
+
+    // up to limit changes after the cursor since, in feed order
+    public List<ItemChange> changesSince(long since, int limit) {
+        return changeRepository.findPage(since, PageRequest.of(0, limit));
+    }
+
+    void purge() {
+        try {
+            int deleted = changeRepository.deleteOlderThan(properties.getRetention().toNanos());
+            if (deleted > 0) {
+                log.info("Deleted {} item changes past retention", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not delete item changes past retention", e);
+        }
+    }
+}
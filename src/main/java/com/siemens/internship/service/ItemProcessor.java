@@ -0,0 +1,16 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+
+// one stage of item processing, e.g. enrich, validate or transform. Every ItemProcessor bean becomes a
+// stage of the processing pipeline, run in @Order order, each on its own threads with a bounded queue in
+// front (see items.processing.stages); the changed items are persisted in batches after the last stage.
+// Without any ItemProcessor bean processing only moves the items to PROCESSED, in set-based chunks
+public interface ItemProcessor {
+    // the stage name: tag of its timers and key of its settings under items.processing.stages
+    String name();
+
+    // works on the item in place; called concurrently from the stage's threads, may block on IO.
+    // An exception fails the item, which is not persisted and stays UNPROCESSED for a later run
+    void process(Item item);
+}
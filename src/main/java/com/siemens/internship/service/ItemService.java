@@ -1,29 +1,90 @@
 package com.siemens.internship.service;
 
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.exception.BadRequestException;
+import com.siemens.internship.exception.InvalidItemException;
+import com.siemens.internship.exception.NotFoundException;
+import com.siemens.internship.exception.PreconditionFailedException;
+import com.siemens.internship.exception.ServiceUnavailableException;
+import com.siemens.internship.exception.TooManyRequestsException;
+import com.siemens.internship.metrics.ItemMetrics;
+import com.siemens.internship.metrics.ItemMetrics.ServiceOp;
 import com.siemens.internship.model.Item;
-import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingLease;
+import com.siemens.internship.repository.ItemQuery;
+import com.siemens.internship.repository.ItemStore;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.*;
-import java.util.stream.Collectors;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
+@Slf4j
 @Service
 public class ItemService {
+    // the configured storage backend, see items.store.type
     @Autowired
-    private ItemRepository itemRepository;
+    private ItemStore itemStore;
+
+    // read-through cache in front of findById, kept in sync by save and deleteById
+    @Autowired
+    private ItemCache itemCache;
+
+    // optional in-memory (name, id) index for type-ahead, kept in sync like the cache
+    @Autowired
+    private NamePrefixIndex namePrefixIndex;
+
+    // outbox every write records its change in, read back by changesSince
+    @Autowired
+    private ItemChangeLog changeLog;
+
+    // chunked, set-based engine that does the actual status transitions
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    // keeps the state of started processing jobs so clients can poll them
+    @Autowired
+    private ProcessingJobRegistry jobRegistry;
+
+    // durable checkpoints and failures of processing runs, so a restarted run resumes instead of starting over
+    @Autowired
+    private ProcessingCheckpoints checkpoints;
+
+    // splits runs into leased id ranges, so nodes sharing the database process each range once
+    @Autowired
+    private ProcessingLeases leases;
 
-    // @Qualifier("taskExecutor") is used to inject the custom executor bean defined in AsyncConfig
-    // this allows for better control over the thread pool configuration
     @Autowired
     @Qualifier("taskExecutor")
     private Executor taskExecutor;
-    private final ExecutorService executor = Executors.newFixedThreadPool(10);
+
+    @Autowired
+    private ProcessingProperties processingProperties;
+
+    @Autowired
+    private ItemValidator itemValidator;
+
+    // pre-registered timers, one per method and outcome
+    @Autowired
+    private ItemMetrics metrics;
 
     // private List<Item> processedItems = new ArrayList<>();
     // private int processedCount = 0;
@@ -31,63 +92,402 @@ public class ItemService {
 
 
     public List<Item> findAll() {
-        return itemRepository.findAll();
+        long start = System.nanoTime();
+        try {
+            List<Item> items = itemStore.findAll();
+            metrics.record(ServiceOp.FIND_ALL, start);
+            return items;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.FIND_ALL, start);
+            throw e;
+        }
+    }
+
+    // one keyset page of items with an id greater than afterId
+    public List<Item> findPage(long afterId, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<Item> items = itemStore.findPage(afterId, limit);
+            metrics.record(ServiceOp.FIND_PAGE, start);
+            return items;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.FIND_PAGE, start);
+            throw e;
+        }
     }
 
+    // findPage reading only the given fields (plus the id), e.g. for clients polling ids and statuses
+    public List<Item> findPage(long afterId, int limit, Set<ItemField> fields) {
+        long start = System.nanoTime();
+        try {
+            List<Item> items = itemStore.findPage(afterId, limit, fields);
+            metrics.record(ServiceOp.FIND_PAGE, start);
+            return items;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.FIND_PAGE, start);
+            throw e;
+        }
+    }
+
+    // hands every item after afterId to the sink one by one, the store never materializes the result
+    public void streamAll(long afterId, Consumer<Item> sink) {
+        long start = System.nanoTime();
+        try {
+            itemStore.forEach(afterId, sink);
+            metrics.record(ServiceOp.STREAM_ALL, start);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.STREAM_ALL, start);
+            throw e;
+        }
+    }
+
+    // served from the item cache, the database is only hit on a miss
     public Optional<Item> findById(Long id) {
-        return itemRepository.findById(id);
+        long start = System.nanoTime();
+        try {
+            Optional<Item> item = itemCache.get(id, itemStore::findById);
+            metrics.record(ServiceOp.FIND_BY_ID, start);
+            return item;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.FIND_BY_ID, start);
+            throw e;
+        }
+    }
+
+    // a cached item is projected, a miss reads only the given fields and is not cached, since the
+    // cache holds whole items
+    public Optional<Item> findById(Long id, Set<ItemField> fields) {
+        long start = System.nanoTime();
+        try {
+            Optional<Item> cached = itemCache.getIfPresent(id);
+            Optional<Item> item = cached.isPresent()
+                    ? cached.map(it -> ItemField.project(it, fields))
+                    : itemStore.findById(id, fields);
+            metrics.record(ServiceOp.FIND_BY_ID, start);
+            return item;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.FIND_BY_ID, start);
+            throw e;
+        }
+    }
+
+    // one keyset page of the items matching the query's filters
+    public List<Item> search(ItemQuery query) {
+        long start = System.nanoTime();
+        try {
+            List<Item> items = itemStore.search(query);
+            metrics.record(ServiceOp.SEARCH, start);
+            return items;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.SEARCH, start);
+            throw e;
+        }
+    }
+
+    // search reading only the given fields (plus those of the keyset)
+    public List<Item> search(ItemQuery query, Set<ItemField> fields) {
+        long start = System.nanoTime();
+        try {
+            List<Item> items = itemStore.search(query, fields);
+            metrics.record(ServiceOp.SEARCH, start);
+            return items;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.SEARCH, start);
+            throw e;
+        }
+    }
+
+    // type-ahead: names starting with prefix, from the in-memory index when it is enabled and
+    // otherwise as a name-ordered prefix search of the store
+    public List<NamePrefixIndex.ItemName> suggestNames(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<NamePrefixIndex.ItemName> names = namePrefixIndex.isEnabled()
+                    ? namePrefixIndex.find(prefix, limit)
+                    : itemStore.search(new ItemQuery(null, null, null, prefix, ItemQuery.Order.NAME, null, 0L, limit)).stream()
+                            .map(item -> new NamePrefixIndex.ItemName(item.getId(), item.getName()))
+                            .toList();
+            metrics.record(ServiceOp.SUGGEST_NAMES, start);
+            return names;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.SUGGEST_NAMES, start);
+            throw e;
+        }
     }
 
     public Item save(Item item) {
-        return itemRepository.save(item);
+        long start = System.nanoTime();
+        try {
+            Item saved = changeLog.write(() -> itemStore.save(item), it -> List.of(ItemChange.of(it)));
+            itemCache.put(saved);
+            namePrefixIndex.put(saved);
+            metrics.record(ServiceOp.SAVE, start);
+            return saved;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.SAVE, start);
+            throw e;
+        }
+    }
+
+    // replaces an existing item in one store write instead of find + save;
+    // with an expected version the write only happens if nobody changed the item in between
+    public Item update(Long id, Item changes, Long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            Item result = changeLog.write(() -> cachedOnCommit(itemStore.replace(id, changes, expectedVersion)), ItemService::updated)
+                    .orElseThrow(() -> new NotFoundException("Item not found with id: " + id));
+            namePrefixIndex.put(result);
+            metrics.record(ServiceOp.UPDATE, start);
+            return result;
+        } catch (OptimisticLockingFailureException e) {
+            // the stores report a lost race in the DAO hierarchy, the API answers it with 412
+            metrics.recordFailure(ServiceOp.UPDATE, start);
+            throw new PreconditionFailedException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.UPDATE, start);
+            throw e;
+        }
+    }
+
+    // JSON Merge Patch (RFC 7386): only the fields present in the patch change and null clears a field.
+    // The stored item is patched and validated property by property in a single read-modify-write of
+    // the store; the JPA store writes only the changed columns (and nothing if the patch changes nothing)
+    public Item patch(Long id, Map<String, Object> patch, Long expectedVersion) {
+        long start = System.nanoTime();
+        try {
+            Item result = changeLog.write(() -> cachedOnCommit(itemStore.update(id, expectedVersion, item -> {
+                List<String> errors = new ArrayList<>(0);
+                for (Map.Entry<String, Object> field : patch.entrySet()) {
+                    String value = patchValue(field);
+                    switch (field.getKey()) {
+                        case "name" -> item.setName(value);
+                        case "description" -> item.setDescription(value);
+                        case "email" -> item.setEmail(value);
+                        case "status" -> item.setStatus(value == null ? null : parseStatus(value));
+                        default -> throw new BadRequestException(field.getKey() + " cannot be patched");
+                    }
+                    errors.addAll(itemValidator.validateProperty(item, field.getKey()));
+                }
+                if (!errors.isEmpty()) {
+                    throw new InvalidItemException(errors);
+                }
+            })), ItemService::updated).orElseThrow(() -> new NotFoundException("Item not found with id: " + id));
+            namePrefixIndex.put(result);
+            metrics.record(ServiceOp.PATCH, start);
+            return result;
+        } catch (OptimisticLockingFailureException e) {
+            // the stores report a lost race in the DAO hierarchy, the API answers it with 412
+            metrics.recordFailure(ServiceOp.PATCH, start);
+            throw new PreconditionFailedException(e.getMessage(), e);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.PATCH, start);
+            throw e;
+        }
+    }
+
+    // called inside the write transaction, so the cache takes the new state only once it committed
+    private Optional<Item> cachedOnCommit(Optional<Item> written) {
+        written.ifPresent(itemCache::putAfterCommit);
+        return written;
+    }
+
+    private static List<ItemChange> updated(Optional<Item> item) {
+        return item.map(it -> List.of(ItemChange.of(it.getId(), ItemChange.Type.UPDATED, it.getStatus()))).orElse(List.of());
+    }
+
+    private static String patchValue(Map.Entry<String, Object> field) {
+        if (field.getValue() != null && !(field.getValue() instanceof String)) {
+            throw new BadRequestException(field.getKey() + " must be a string or null");
+        }
+        return (String) field.getValue();
+    }
+
+    private static ItemStatus parseStatus(String value) {
+        try {
+            return ItemStatus.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("status must be one of " + Arrays.toString(ItemStatus.values()));
+        }
     }
 
     public void deleteById(Long id) {
-        itemRepository.deleteById(id);
+        long start = System.nanoTime();
+        try {
+            // recorded even if there was no such item, consumers apply deletions idempotently
+            changeLog.write(() -> {
+                itemStore.deleteById(id);
+                return id;
+            }, it -> List.of(ItemChange.of(it, ItemChange.Type.DELETED, null)));
+            itemCache.invalidate(id);
+            namePrefixIndex.remove(id);
+            metrics.record(ServiceOp.DELETE_BY_ID, start);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.DELETE_BY_ID, start);
+            throw e;
+        }
+    }
+
+    // the change feed: up to limit changes recorded after the cursor since, oldest first
+    public List<ItemChange> changesSince(long since, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<ItemChange> changes = changeLog.changesSince(since, limit);
+            metrics.record(ServiceOp.CHANGES_SINCE, start);
+            return changes;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.CHANGES_SINCE, start);
+            throw e;
+        }
+    }
+
+    public ItemCache.Stats cacheStats() {
+        return itemCache.stats();
     }
 
 
-    //  @Async and manual CompletableFuture.runAsync(..., executor) used together, the second one is redundant
+    // processes every UNPROCESSED item through the batch engine and returns the items that were processed;
+    // rows are read and updated chunk by chunk, only the returned list grows with the number of items.
+    // Like a job, the run is checkpointed and resumes where an interrupted run stopped
     @Async
     public CompletableFuture<List<Item>> processItemsAsync() {
+        long start = System.nanoTime();
+        // chunks commit on several worker threads, so the result collector has to be thread-safe
+        Queue<Item> processedItems = new ConcurrentLinkedQueue<>();
+        ProcessingCheckpoints.Run run = null;
+        try {
+            run = checkpoints.begin(UUID.randomUUID().toString());
+            ItemBatchProcessor.ChunkListener collector = new ItemBatchProcessor.ChunkListener() {
+                @Override
+                public void onChunkCommitted(List<Long> ids, int updated) {
+                    processedItems.addAll(itemStore.findAllById(ids));
+                }
+            };
+            leases.process(ProcessingLease.Scope.UNPROCESSED, batchProcessor.unprocessed(), run.resumeAfter(), run.track(collector));
+            run.finish(true);
+        } catch (InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            finishQuietly(run);
+            metrics.recordFailure(ServiceOp.PROCESS_ITEMS, start);
+            return CompletableFuture.failedFuture(e);
+        }
+        metrics.record(ServiceOp.PROCESS_ITEMS, start);
+        return CompletableFuture.completedFuture(new ArrayList<>(processedItems));
+    }
+
+    // starts a processing run in the background and returns immediately with its job handle;
+    // progress is tracked as counters only, no processed items are kept in memory.
+    // Admission control: beyond maxConcurrentJobs running jobs the start is refused with a
+    // TooManyRequestsException, and a saturated taskExecutor yields a ServiceUnavailableException.
+    // A client (null for none) is refused as well while maxConcurrentJobsPerClient of its jobs run
+    public ProcessingJob startProcessingJob(String client) {
+        return startJob(false, client);
+    }
+
+    // starts a job that retries only the items earlier runs failed or shed, read from the failure
+    // records instead of a scan of the items; same admission control as startProcessingJob
+    public ProcessingJob startRetryJob(String client) {
+        return startJob(true, client);
+    }
 
-        List<Long> itemIds = itemRepository.findAllIds();
+    private ProcessingJob startJob(boolean retry, String client) {
+        long start = System.nanoTime();
+        try {
+            int maxPerClient = processingProperties.getMaxConcurrentJobsPerClient();
+            ProcessingJob job = jobRegistry.tryCreate(processingProperties.getMaxConcurrentJobs(), client, maxPerClient)
+                    .orElseThrow(() -> new TooManyRequestsException(client != null && maxPerClient > 0 && jobRegistry.runningOf(client) >= maxPerClient
+                            ? "Client " + client + " already runs " + maxPerClient + " processing jobs, retry later"
+                            : "Too many processing jobs are running, retry later", retryAfterSeconds()));
+            try {
+                taskExecutor.execute(() -> runJob(job, retry));
+            } catch (RejectedExecutionException e) {
+                jobRegistry.finish(job, ProcessingJob.State.FAILED);
+                throw new ServiceUnavailableException("Processing executor is saturated, retry later", retryAfterSeconds(), e);
+            }
+            metrics.record(ServiceOp.START_PROCESSING_JOB, start);
+            return job;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(ServiceOp.START_PROCESSING_JOB, start);
+            throw e;
+        }
+    }
 
-        // CompletableFuture.completedFuture(processedItems) is returned immediately, instead of waiting for all items to be processed
-        // this is not the intended behavior, as it will return an empty list immediately
+    public Optional<ProcessingJob> findJob(String jobId) {
+        return jobRegistry.find(jobId);
+    }
 
-        // create a list of CompletableFutures for each item ID
-        // using CompletableFuture.supplyAsync() to process each item in parallel
-        // this will run the processItem method asynchronously in the executor thread pool
-        List<CompletableFuture<Item>> futures = itemIds.stream()
-                .map(id -> CompletableFuture.supplyAsync(() -> processItem(id), executor))
-                .toList();
+    // flags the job for cancellation, returns empty if no such job exists
+    public Optional<ProcessingJob> cancelJob(String jobId) {
+        Optional<ProcessingJob> job = jobRegistry.find(jobId);
+        job.ifPresent(ProcessingJob::requestCancel);
+        return job;
+    }
 
-        // wait for all futures to complete, collect the results
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(voided -> futures.stream()
-                        .map(CompletableFuture::join) // join is safe now because all futures are done
-                        .filter(Objects::nonNull) // filter out null items
-                        .collect(Collectors.toList()));
+    // when the next slot is expected to free up, clamped to a sane range
+    private long retryAfterSeconds() {
+        return jobRegistry.shortestEtaSeconds()
+                .map(eta -> Math.max(1, Math.min(eta, 300)))
+                .orElse((long) processingProperties.getRetryAfterSeconds());
     }
 
-    // processes an item by its ID, returns the processed item or null if not found or exception occurs
-    private Item processItem(Long id) {
+    // a main run is checkpointed and resumes an interrupted one; a retry run works off the failure records
+    private void runJob(ProcessingJob job, boolean retry) {
+        ProcessingCheckpoints.Run run = null;
         try {
-            Thread.sleep(100);
+            ItemBatchProcessor.ChunkListener progress = new ItemBatchProcessor.ChunkListener() {
+                @Override
+                public void onChunkCommitted(List<Long> ids, int updated) {
+                    job.addProcessed(updated);
+                }
 
-            Optional<Item> optionalItem = itemRepository.findById(id);
-            if (optionalItem.isEmpty()) return null;
+                @Override
+                public void onChunkFailed(List<Long> ids, RuntimeException e) {
+                    job.addFailed(ids.size());
+                }
 
-            Item item = optionalItem.get();
-            item.setStatus("PROCESSED");
-            return itemRepository.save(item);
+                @Override
+                public void onChunkShed(List<Long> ids) {
+                    job.addShed(ids.size());
+                }
 
-        } catch (Exception e) {
-            System.err.println("Failed to process item with ID " + id + ": " + e.getMessage());
-            return null;
+                @Override
+                public boolean isCancelled() {
+                    return job.isCancelRequested();
+                }
+            };
+            if (retry) {
+                job.setTotal(checkpoints.countFailed());
+                leases.process(ProcessingLease.Scope.RETRY, checkpoints.failedItems(), 0L, checkpoints.retrying(job.getId(), progress));
+            } else {
+                job.setTotal(itemStore.countByStatus(ItemStatus.UNPROCESSED));
+                run = checkpoints.begin(job.getId());
+                leases.process(ProcessingLease.Scope.UNPROCESSED, batchProcessor.unprocessed(), run.resumeAfter(), run.track(progress));
+                run.finish(!job.isCancelRequested());
+            }
+            jobRegistry.finish(job, job.isCancelRequested() ? ProcessingJob.State.CANCELLED : ProcessingJob.State.COMPLETED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finishQuietly(run);
+            jobRegistry.finish(job, ProcessingJob.State.CANCELLED);
+        } catch (RuntimeException e) {
+            log.error("Processing job {} failed", job.getId(), e);
+            finishQuietly(run);
+            jobRegistry.finish(job, ProcessingJob.State.FAILED);
         }
     }
 
-}
+    // leaves the checkpoint of a run that ended early for the next run to resume
+    private static void finishQuietly(ProcessingCheckpoints.Run run) {
+        if (run == null) {
+            return;
+        }
+        try {
+            run.finish(false);
+        } catch (RuntimeException e) {
+            // still RUNNING, so it is resumed after the next restart at the latest
+            log.warn("Could not record the end of processing run {}", run.getRunId(), e);
+        }
+    }
 
+}
@@ -0,0 +1,210 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.model.Item;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// fast path for the Item constraints: the @Pattern regexes the model declares today are checked with
+// hand-written character-class loops that produce the same "field message" errors without a Matcher
+// or ConstraintViolation per call. Any constraint the fast path does not recognise (another regex,
+// flags, other annotations, class-level constraints) is still checked by Hibernate Validator
+@Component
+public class ItemValidator implements Validator {
+    static final String NAME_REGEX = "^[a-zA-Z0-9_ ]{3,50}$";
+    static final String EMAIL_REGEX = "^[\\w.%+-]+@[\\w.-]+\\.[A-Za-z]{2,6}$";
+
+    // hand-written equivalents of the regexes above, keyed by the exact regexp string
+    private static final Map<String, Predicate<String>> FAST_CHECKS = Map.of(
+            NAME_REGEX, ItemValidator::isWord,
+            EMAIL_REGEX, ItemValidator::isEmail);
+
+    private static final Map<String, Function<Item, Object>> GETTERS = Map.of(
+            "name", Item::getName,
+            "description", Item::getDescription,
+            "email", Item::getEmail);
+
+    // one precomputed check per fast-path constraint
+    private record Rule(String property, Function<Item, Object> getter, Predicate<String> check, String message) {
+    }
+
+    private final jakarta.validation.Validator fallback;
+    private final List<Rule> rules = new ArrayList<>();
+    private final Set<String> fallbackProperties = new HashSet<>();
+    private final boolean fallbackBean;
+
+    public ItemValidator(jakarta.validation.Validator fallback) {
+        this.fallback = fallback;
+        // the plan is derived from the model's own constraint metadata, so the messages stay
+        // in one place and a changed annotation silently moves its property to the fallback
+        BeanDescriptor bean = fallback.getConstraintsForClass(Item.class);
+        fallbackBean = !bean.getConstraintDescriptors().isEmpty();
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            String name = property.getPropertyName();
+            for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                Rule rule = fastRule(name, constraint);
+                if (rule != null) {
+                    rules.add(rule);
+                } else {
+                    fallbackProperties.add(name);
+                }
+            }
+            if (property.isCascaded()) {
+                fallbackProperties.add(name);
+            }
+        }
+        // a property with any unsupported constraint is validated entirely by Hibernate Validator
+        rules.removeIf(rule -> fallbackProperties.contains(rule.property()));
+    }
+
+    private static Rule fastRule(String property, ConstraintDescriptor<?> constraint) {
+        if (!(constraint.getAnnotation() instanceof Pattern pattern) || pattern.flags().length > 0
+                || !constraint.getComposingConstraints().isEmpty() || !GETTERS.containsKey(property)) {
+            return null;
+        }
+        Predicate<String> check = FAST_CHECKS.get(pattern.regexp());
+        // the messages on Item are literals, anything else still needs interpolation
+        if (check == null || pattern.message().contains("{")) {
+            return null;
+        }
+        return new Rule(property, GETTERS.get(property), check, pattern.message());
+    }
+
+    // all errors of the item as "field message", the format of the GlobalExceptionHandler
+    public List<String> validateItem(Item item) {
+        if (fallbackBean) {
+            return format(fallback.validate(item));
+        }
+        List<String> errors = new ArrayList<>(0);
+        for (Rule rule : rules) {
+            if (!passes(rule, item)) {
+                errors.add(rule.property() + " " + rule.message());
+            }
+        }
+        for (String property : fallbackProperties) {
+            errors.addAll(format(fallback.validateProperty(item, property)));
+        }
+        return errors;
+    }
+
+    // errors of a single property, e.g. for a partial update
+    public List<String> validateProperty(Item item, String property) {
+        if (fallbackProperties.contains(property)) {
+            return format(fallback.validateProperty(item, property));
+        }
+        List<String> errors = new ArrayList<>(0);
+        for (Rule rule : rules) {
+            if (rule.property().equals(property) && !passes(rule, item)) {
+                errors.add(property + " " + rule.message());
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+        return Item.class.equals(clazz);
+    }
+
+    // Spring binding entry point, so @Valid @RequestBody Item keeps producing MethodArgumentNotValidException
+    @Override
+    public void validate(Object target, Errors errors) {
+        Item item = (Item) target;
+        if (fallbackBean) {
+            fallback.validate(item).forEach(violation -> errors.rejectValue(violation.getPropertyPath().toString(),
+                    violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName(), violation.getMessage()));
+            return;
+        }
+        for (Rule rule : rules) {
+            if (!passes(rule, item)) {
+                errors.rejectValue(rule.property(), Pattern.class.getSimpleName(), rule.message());
+            }
+        }
+        for (String property : fallbackProperties) {
+            fallback.validateProperty(item, property).forEach(violation -> errors.rejectValue(property,
+                    violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName(), violation.getMessage()));
+        }
+    }
+
+    // like @Pattern, null is valid
+    private static boolean passes(Rule rule, Item item) {
+        Object value = rule.getter().apply(item);
+        return value == null || rule.check().test(value.toString());
+    }
+
+    private static List<String> format(Set<? extends jakarta.validation.ConstraintViolation<?>> violations) {
+        List<String> errors = new ArrayList<>(violations.size());
+        for (jakarta.validation.ConstraintViolation<?> violation : violations) {
+            errors.add(violation.getPropertyPath() + " " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    // ^[a-zA-Z0-9_ ]{3,50}$
+    static boolean isWord(String value) {
+        int length = value.length();
+        if (length < 3 || length > 50) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!isWordChar(c) && c != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ^[\w.%+-]+@[\w.-]+\.[A-Za-z]{2,6}$ : neither side may contain '@', so the split is at the only '@';
+    // the top-level domain has no '.', so it is whatever follows the last '.' of the domain
+    static boolean isEmail(String value) {
+        int at = value.indexOf('@');
+        if (at < 1) {
+            return false;
+        }
+        for (int i = 0; i < at; i++) {
+            char c = value.charAt(i);
+            if (!isWordChar(c) && c != '.' && c != '%' && c != '+' && c != '-') {
+                return false;
+            }
+        }
+        int lastDot = value.lastIndexOf('.');
+        int tld = value.length() - lastDot - 1;
+        if (lastDot <= at + 1 || tld < 2 || tld > 6) {
+            return false;
+        }
+        for (int i = at + 1; i < lastDot; i++) {
+            char c = value.charAt(i);
+            if (!isWordChar(c) && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        for (int i = lastDot + 1; i < value.length(); i++) {
+            if (!isAsciiLetter(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // \w without UNICODE_CHARACTER_CLASS: [a-zA-Z_0-9]
+    private static boolean isWordChar(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,105 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.SearchProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.repository.ItemStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// in-memory index of item names for type-ahead: (name, id) pairs in a concurrent sorted set, so a prefix
+// lookup is one O(log n) seek followed by reading the matches in order, without a database round trip.
+// Kept in sync by the services on every write, the same way as the item cache; a no-op when disabled
+@Slf4j
+@Component
+public class NamePrefixIndex {
+    // one type-ahead match
+    public record ItemName(long id, String name) {
+    }
+
+    private static final Comparator<ItemName> ORDER = Comparator.comparing(ItemName::name).thenComparingLong(ItemName::id);
+
+    @Autowired
+    private ItemStore itemStore;
+
+    private final boolean enabled;
+    private final NavigableSet<ItemName> names = new ConcurrentSkipListSet<>(ORDER);
+    // current name per id, to find the entry to replace when an item is renamed or deleted
+    private final Map<Long, String> nameById = new ConcurrentHashMap<>();
+
+    public NamePrefixIndex(SearchProperties properties) {
+        this.enabled = properties.getNameIndex().isEnabled();
+    }
+
+    // runs while the context starts, before the web server accepts writes
+    @PostConstruct
+    void load() {
+        if (enabled) {
+            long start = System.nanoTime();
+            itemStore.forEach(0L, this::put);
+            log.info("Loaded {} item names into the prefix index in {} ms", nameById.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // up to limit items whose name starts with prefix, ordered by name and id
+    public List<ItemName> find(String prefix, int limit) {
+        List<ItemName> matches = new ArrayList<>(Math.min(limit, 64));
+        for (ItemName entry : names.tailSet(new ItemName(Long.MIN_VALUE, prefix), true)) {
+            if (matches.size() >= limit || !entry.name().startsWith(prefix)) {
+                break;
+            }
+            matches.add(entry);
+        }
+        return matches;
+    }
+
+    // records the current name of a written item; concurrent writes of the same id are serialized by compute
+    public void put(Item item) {
+        if (!enabled || item.getId() == null) {
+            return;
+        }
+        long id = item.getId();
+        nameById.compute(id, (key, previous) -> {
+            if (previous != null) {
+                names.remove(new ItemName(id, previous));
+            }
+            if (item.getName() == null) {
+                return null;
+            }
+            names.add(new ItemName(id, item.getName()));
+            return item.getName();
+        });
+    }
+
+    public void remove(Long id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        nameById.computeIfPresent(id, (key, previous) -> {
+            names.remove(new ItemName(id, previous));
+            return null;
+        });
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        ids.forEach(this::remove);
+    }
+
+    public int size() {
+        return nameById.size();
+    }
+}
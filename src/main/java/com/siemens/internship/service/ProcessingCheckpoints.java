@@ -0,0 +1,285 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.model.ProcessingCheckpoint;
+import com.siemens.internship.model.ProcessingFailure;
+import com.siemens.internship.repository.ProcessingCheckpointRepository;
+import com.siemens.internship.repository.ProcessingFailureRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+// durable bookkeeping of processing runs. Each run keeps a checkpoint row whose resumeAfter is advanced
+// at every chunk commit to the highest id below which nothing is in flight any more; items that fail (or
+// are shed) are recorded as ProcessingFailures first, so a chunk is only passed once it is either
+// committed or on record. A run that ends early leaves its checkpoint INTERRUPTED and the next run
+// starts its scan there; failed items are retried from their own table without scanning the items.
+// Ranges another node works on (see ProcessingLeases) hold the checkpoint back, they are not this run's.
+// A heartbeat keeps the RUNNING rows of this node fresh; those of a node silent for longer than the
+// lease ttl are taken for crashed and interrupted by whichever node begins a run next; both the beat and
+// the silence are measured on the database clock, never on the clocks of the nodes.
+// The checkpoint only saves work: every transition is conditional on the item still being UNPROCESSED
+// (or at the version it was read with), so each item moves exactly once however often it is scanned
+@Slf4j
+@Component
+public class ProcessingCheckpoints {
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    @Autowired
+    private ProcessingCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ProcessingFailureRepository failureRepository;
+
+    // the identity of this node
+    @Autowired
+    private ProcessingLeases leases;
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    // Spring's shared scheduler, shut down by the context
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    // the heartbeat touches the RUNNING rows of this node, so other nodes see its runs are alive
+    @PostConstruct
+    void start() {
+        markInterrupted();
+        Duration interval = properties.getLeasing().getHeartbeatInterval();
+        taskScheduler.scheduleWithFixedDelay(this::touch, Instant.now().plus(interval), interval);
+    }
+
+    // nothing of this node runs before startup, so its RUNNING rows are runs the previous shutdown or
+    // crash cut short; runs of other nodes may well be running
+    void markInterrupted() {
+        int interrupted = checkpointRepository.updateStatesOfNode(leases.nodeId(),
+                ProcessingCheckpoint.State.RUNNING, ProcessingCheckpoint.State.INTERRUPTED);
+        if (interrupted > 0) {
+            log.info("{} processing run(s) were interrupted, the next run resumes from their checkpoint", interrupted);
+        }
+    }
+
+    private void touch() {
+        try {
+            checkpointRepository.touch(leases.nodeId(), ProcessingCheckpoint.State.RUNNING);
+        } catch (RuntimeException e) {
+            // the next beat tries again, the runs only look crashed once ttl has passed without one
+            log.warn("Could not touch the running checkpoints of node {}", leases.nodeId(), e);
+        }
+    }
+
+    // starts the checkpoint of a new run; interrupted runs, including those of nodes that went silent, are
+    // taken over and the scan resumes at the lowest of their checkpoints, since they may have scanned the
+    // same ids in parallel
+    public synchronized Run begin(String runId) {
+        int crashed = checkpointRepository.updateStatesSilentFor(properties.getLeasing().getTtl().toNanos(),
+                ProcessingCheckpoint.State.RUNNING, ProcessingCheckpoint.State.INTERRUPTED);
+        if (crashed > 0) {
+            log.info("{} processing run(s) of silent nodes were interrupted", crashed);
+        }
+        long resumeAfter = Long.MAX_VALUE;
+        for (ProcessingCheckpoint interrupted : checkpointRepository.findByState(ProcessingCheckpoint.State.INTERRUPTED)) {
+            if (checkpointRepository.updateState(interrupted.getRunId(), List.of(ProcessingCheckpoint.State.INTERRUPTED),
+                    ProcessingCheckpoint.State.RESUMED) == 1) {
+                resumeAfter = Math.min(resumeAfter, interrupted.getResumeAfter());
+            }
+        }
+        if (resumeAfter == Long.MAX_VALUE) {
+            resumeAfter = 0L;
+        } else {
+            log.info("Processing run {} resumes after ID {}", runId, resumeAfter);
+        }
+        checkpointRepository.insert(runId, ProcessingCheckpoint.State.RUNNING.name(), resumeAfter, leases.nodeId());
+        return new Run(runId, resumeAfter);
+    }
+
+    // source of a retry run: the recorded failures in item id order
+    public ItemBatchProcessor.IdSource failedItems() {
+        return (afterId, limit) -> failureRepository.findItemIdsAfter(afterId, PageRequest.of(0, limit));
+    }
+
+    // source without the items on record as failed, which are left to retry runs instead of being tried
+    // again by every pass. Pages are topped up past the failures, a short page still means the end of source
+    public ItemBatchProcessor.IdSource withoutFailures(ItemBatchProcessor.IdSource source) {
+        return (afterId, limit) -> {
+            List<Long> kept = new ArrayList<>(limit);
+            long after = afterId;
+            while (kept.size() < limit) {
+                int wanted = limit - kept.size();
+                List<Long> ids = source.nextIds(after, wanted);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Set<Long> failed = Set.copyOf(failureRepository.findItemIdsIn(ids));
+                ids.stream().filter(id -> !failed.contains(id)).forEach(kept::add);
+                if (ids.size() < wanted) {
+                    break;
+                }
+                after = ids.get(ids.size() - 1);
+            }
+            return kept;
+        };
+    }
+
+    public long countFailed() {
+        return failureRepository.count();
+    }
+
+    // listener of a retry run: items done leave the failure table, items failing again stay on it
+    public ItemBatchProcessor.ChunkListener retrying(String runId, ItemBatchProcessor.ChunkListener delegate) {
+        return new ItemBatchProcessor.ChunkListener() {
+            @Override
+            public void onChunkStarted(List<Long> ids) {
+                delegate.onChunkStarted(ids);
+            }
+
+            @Override
+            public void onChunkCommitted(List<Long> ids, int updated) {
+                // including ids that were not UNPROCESSED any more, nothing is left to retry for them
+                failureRepository.deleteAllByIdInBatch(ids);
+                delegate.onChunkCommitted(ids, updated);
+            }
+
+            @Override
+            public void onChunkFailed(List<Long> ids, RuntimeException e) {
+                recordFailures(runId, ids, e.toString());
+                delegate.onChunkFailed(ids, e);
+            }
+
+            @Override
+            public void onChunkShed(List<Long> ids) {
+                delegate.onChunkShed(ids);
+            }
+
+            @Override
+            public void onRangeSkipped(long afterId, long lastId) {
+                delegate.onRangeSkipped(afterId, lastId);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return delegate.isCancelled();
+            }
+        };
+    }
+
+    private void recordFailures(String runId, List<Long> ids, String error) {
+        Instant now = Instant.now();
+        String message = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        failureRepository.saveAll(ids.stream().map(id -> new ProcessingFailure(id, runId, message, now)).toList());
+    }
+
+    // checkpoint of one run, see begin
+    public final class Run {
+        private final String runId;
+        private final long resumeAfter;
+        // ids handed to the workers and not reported back yet
+        private final NavigableSet<Long> inFlight = new ConcurrentSkipListSet<>();
+        // last id handed out, written after its ids were added to inFlight
+        private volatile long lastStarted;
+        // the checkpoint never passes the first range left to another node
+        private volatile long skippedAfter = Long.MAX_VALUE;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        // guarded by this
+        private long saved;
+
+        private Run(String runId, long resumeAfter) {
+            this.runId = runId;
+            this.resumeAfter = resumeAfter;
+            this.lastStarted = resumeAfter;
+            this.saved = resumeAfter;
+        }
+
+        public String getRunId() {
+            return runId;
+        }
+
+        // where the scan of this run starts
+        public long resumeAfter() {
+            return resumeAfter;
+        }
+
+        // the listener the engine reports to: tracks progress and failures, then forwards to delegate
+        public ItemBatchProcessor.ChunkListener track(ItemBatchProcessor.ChunkListener delegate) {
+            return new ItemBatchProcessor.ChunkListener() {
+                @Override
+                public void onChunkStarted(List<Long> ids) {
+                    inFlight.addAll(ids);
+                    if (!ids.isEmpty()) {
+                        lastStarted = ids.get(ids.size() - 1);
+                    }
+                    delegate.onChunkStarted(ids);
+                }
+
+                @Override
+                public void onChunkCommitted(List<Long> ids, int updated) {
+                    processed.addAndGet(updated);
+                    done(ids);
+                    delegate.onChunkCommitted(ids, updated);
+                }
+
+                @Override
+                public void onChunkFailed(List<Long> ids, RuntimeException e) {
+                    recordFailures(runId, ids, e.toString());
+                    failed.addAndGet(ids.size());
+                    done(ids);
+                    delegate.onChunkFailed(ids, e);
+                }
+
+                @Override
+                public void onChunkShed(List<Long> ids) {
+                    recordFailures(runId, ids, "shed");
+                    done(ids);
+                    delegate.onChunkShed(ids);
+                }
+
+                @Override
+                public void onRangeSkipped(long afterId, long lastId) {
+                    skippedAfter = Math.min(skippedAfter, afterId);
+                    delegate.onRangeSkipped(afterId, lastId);
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return delegate.isCancelled();
+                }
+            };
+        }
+
+        // a completed run is never resumed; anything else is, from its last checkpoint
+        public void finish(boolean completed) {
+            save();
+            checkpointRepository.updateState(runId, List.of(ProcessingCheckpoint.State.RUNNING),
+                    completed ? ProcessingCheckpoint.State.COMPLETED : ProcessingCheckpoint.State.INTERRUPTED);
+        }
+
+        private void done(List<Long> ids) {
+            ids.forEach(inFlight::remove);
+            save();
+        }
+
+        // one single-row UPDATE; ids started after lastStarted was read are above it, so reading it
+        // before the lowest in-flight id can only make the checkpoint lag, never skip an id
+        private synchronized void save() {
+            long started = lastStarted;
+            Long lowest = inFlight.ceiling(Long.MIN_VALUE);
+            long checkpoint = Math.min(lowest == null ? started : Math.min(started, lowest - 1), skippedAfter);
+            saved = Math.max(saved, checkpoint);
+            checkpointRepository.updateProgress(runId, saved, processed.get(), failed.get());
+        }
+    }
+}
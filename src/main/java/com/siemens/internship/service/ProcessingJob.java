@@ -0,0 +1,111 @@
+package com.siemens.internship.service;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// live state of one processing run; counters are updated by the worker threads and read by pollers
+// without locking, a poll only builds a small Snapshot from a handful of volatile/atomic fields
+public class ProcessingJob {
+    public enum State {
+        RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    // immutable view of a job returned to API clients
+    public record Snapshot(String id, State state, long total, long processed, long failed, long shed,
+                           double throughputPerSecond, Long etaSeconds, Instant startedAt, Instant finishedAt) {
+    }
+
+    private final String id;
+    // client that started the job, null when it was not started for a client
+    private final String owner;
+    private final Instant startedAt = Instant.now();
+    private final long startedNanos = System.nanoTime();
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    private volatile State state = State.RUNNING;
+    private volatile boolean cancelRequested;
+    private volatile Instant finishedAt;
+    private volatile long finishedNanos;
+
+    public ProcessingJob(String id) {
+        this(id, null);
+    }
+
+    public ProcessingJob(String id, String owner) {
+        this.id = id;
+        this.owner = owner;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    public void setTotal(long total) {
+        this.total.set(total);
+    }
+
+    public void addProcessed(long count) {
+        processed.addAndGet(count);
+    }
+
+    public void addFailed(long count) {
+        failed.addAndGet(count);
+    }
+
+    public void addShed(long count) {
+        shed.addAndGet(count);
+    }
+
+    // only flags the job, the engine stops before reading the next chunk and lets in-flight chunks commit
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    public void finish(State finalState) {
+        finishedNanos = System.nanoTime();
+        finishedAt = Instant.now();
+        state = finalState;
+    }
+
+    public Snapshot snapshot() {
+        long done = processed.get();
+        long failedCount = failed.get();
+        long shedCount = shed.get();
+        long totalCount = total.get();
+        long end = isFinished() ? finishedNanos : System.nanoTime();
+        double elapsedSeconds = (end - startedNanos) / 1_000_000_000.0;
+        double throughput = elapsedSeconds > 0 ? done / elapsedSeconds : 0.0;
+
+        // ETA is only meaningful while running and once some progress has been observed
+        Long eta = null;
+        if (!isFinished() && throughput > 0) {
+            long remaining = Math.max(0, totalCount - done - failedCount - shedCount);
+            eta = (long) Math.ceil(remaining / throughput);
+        }
+        return new Snapshot(id, state, totalCount, done, failedCount, shedCount, throughput, eta, startedAt, finishedAt);
+    }
+}
@@ -0,0 +1,114 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ProcessingProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// in-memory registry of processing jobs; lookups are a single map read so polling is cheap,
+// and only a bounded number of finished jobs is retained
+@Component
+public class ProcessingJobRegistry {
+    private final Map<String, ProcessingJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    // number of jobs that have been admitted and not finished yet
+    private final AtomicInteger running = new AtomicInteger();
+
+    // the same per owner, an owner without running jobs has no entry
+    private final Map<String, Integer> runningByOwner = new ConcurrentHashMap<>();
+
+    // admits a new job unless maxRunning jobs are already running
+    public Optional<ProcessingJob> tryCreate(int maxRunning) {
+        return tryCreate(maxRunning, null, 0);
+    }
+
+    // admits a new job of owner unless maxRunning jobs in total or maxPerOwner (0 = no limit) jobs of
+    // the owner are already running; a null owner is only subject to maxRunning
+    public Optional<ProcessingJob> tryCreate(int maxRunning, String owner, int maxPerOwner) {
+        int current;
+        do {
+            current = running.get();
+            if (current >= maxRunning) {
+                return Optional.empty();
+            }
+        } while (!running.compareAndSet(current, current + 1));
+        if (owner != null && !reserve(owner, maxPerOwner)) {
+            running.decrementAndGet();
+            return Optional.empty();
+        }
+
+        ProcessingJob job = new ProcessingJob(UUID.randomUUID().toString(), owner);
+        jobs.put(job.getId(), job);
+        evictFinished();
+        return Optional.of(job);
+    }
+
+    // marks the job finished and frees its admission slot
+    public void finish(ProcessingJob job, ProcessingJob.State state) {
+        job.finish(state);
+        if (job.getOwner() != null) {
+            runningByOwner.computeIfPresent(job.getOwner(), (owner, count) -> count == 1 ? null : count - 1);
+        }
+        running.decrementAndGet();
+    }
+
+    public int runningCount() {
+        return running.get();
+    }
+
+    public int runningOf(String owner) {
+        return runningByOwner.getOrDefault(owner, 0);
+    }
+
+    // takes a slot of the owner; atomic per owner, job starts are far too rare for this to contend
+    private boolean reserve(String owner, int maxPerOwner) {
+        boolean[] reserved = {false};
+        runningByOwner.compute(owner, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (maxPerOwner > 0 && current >= maxPerOwner) {
+                return count;
+            }
+            reserved[0] = true;
+            return current + 1;
+        });
+        return reserved[0];
+    }
+
+    // shortest ETA among running jobs, i.e. when a slot is expected to free up
+    public Optional<Long> shortestEtaSeconds() {
+        return jobs.values().stream()
+                .filter(job -> !job.isFinished())
+                .map(job -> job.snapshot().etaSeconds())
+                .filter(Objects::nonNull)
+                .min(Long::compare);
+    }
+
+    public Optional<ProcessingJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    // drops the oldest finished jobs once the retention limit is exceeded; running jobs are never evicted
+    private void evictFinished() {
+        int excess = jobs.size() - Math.max(1, properties.getJobHistory());
+        if (excess <= 0) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(ProcessingJob::isFinished)
+                .sorted(Comparator.comparing(ProcessingJob::getFinishedAt))
+                .limit(excess)
+                .map(ProcessingJob::getId)
+                .toList()
+                .forEach(jobs::remove);
+    }
+}
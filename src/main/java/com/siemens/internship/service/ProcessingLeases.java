@@ -0,0 +1,296 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.model.ProcessingLease;
+import com.siemens.internship.repository.ProcessingLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// database-backed work leasing, so several nodes sharing the database work through one backlog together.
+// The id space is cut into ranges of rangeSize ids and a node processes a range only while it holds the
+// range's ProcessingLease, claimed with one conditional UPDATE that succeeds for exactly one node; the
+// others skip the range like SELECT ... FOR UPDATE SKIP LOCKED would, on any database including H2.
+// A heartbeat renews the leases held, a node that stops renewing loses its ranges to the others once
+// they expire. Expiry is set and checked on the database clock, the clocks of the nodes may disagree.
+// Ranges without work are jumped over through the source's index, so nodes only meet on ranges with work.
+// Leasing only spreads the work: the transitions stay conditional, so even a stalled node still writing
+// after its lease was taken over cannot move an item a second time. Rows idle for longer than retention
+// are purged, so the table only holds the ranges of recent runs
+@Slf4j
+@Component
+public class ProcessingLeases {
+    private enum Claim {
+        CLAIMED,
+        // another node holds the range
+        HELD,
+        // another node completed the range since this run started
+        DONE
+    }
+
+    @Autowired
+    private ProcessingLeaseRepository leaseRepository;
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    // Spring's shared scheduler, shut down by the context
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private String nodeId;
+
+    // leases this node holds right now, renewed by the heartbeat
+    private final Map<ProcessingLease.Key, Lease> held = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        ProcessingProperties.Leasing leasing = properties.getLeasing();
+        nodeId = StringUtils.hasText(leasing.getNodeId()) ? leasing.getNodeId() : defaultNodeId();
+        if (!leasing.isEnabled()) {
+            return;
+        }
+        int released = leaseRepository.releaseAll(nodeId);
+        if (released > 0) {
+            log.info("Node {} released {} lease(s) of its previous run", nodeId, released);
+        }
+        Duration heartbeat = leasing.getHeartbeatInterval();
+        taskScheduler.scheduleWithFixedDelay(this::renew, Instant.now().plus(heartbeat), heartbeat);
+        Duration cleanup = leasing.getCleanupInterval();
+        taskScheduler.scheduleWithFixedDelay(this::purge, Instant.now().plus(cleanup), cleanup);
+    }
+
+    // hands the ranges still held over right away instead of after their lease expired
+    @PreDestroy
+    void stop() {
+        for (Lease lease : held.values()) {
+            lease.lost = true;
+            try {
+                leaseRepository.release(lease.key.getScope(), lease.key.getRangeStart(), nodeId);
+            } catch (RuntimeException e) {
+                log.warn("Could not release lease on range {} of {}", lease.key.getRangeStart(), lease.key.getScope(), e);
+            }
+        }
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    // runs the batch engine over the ranges of source this node can lease, then waits for the ranges it
+    // skipped because other nodes held them and takes over those whose lease expires; without leasing the
+    // engine runs over all of source
+    public ItemBatchProcessor.BatchResult process(ProcessingLease.Scope scope, ItemBatchProcessor.IdSource source, long afterId,
+                                                  ItemBatchProcessor.ChunkListener listener) throws InterruptedException {
+        return process(scope, source, afterId, listener, properties.getParallelism(), true);
+    }
+
+    // one step of the background scheduler: parallelism chunks at once, and ranges other nodes hold are left
+    // to them instead of waited for. A listener that cancels part way releases the current range unfinished
+    public ItemBatchProcessor.BatchResult processAvailable(ProcessingLease.Scope scope, ItemBatchProcessor.IdSource source, long afterId,
+                                                           ItemBatchProcessor.ChunkListener listener, int parallelism)
+            throws InterruptedException {
+        return process(scope, source, afterId, listener, parallelism, false);
+    }
+
+    private ItemBatchProcessor.BatchResult process(ProcessingLease.Scope scope, ItemBatchProcessor.IdSource source, long afterId,
+                                                   ItemBatchProcessor.ChunkListener listener, int parallelism, boolean takeOver)
+            throws InterruptedException {
+        ProcessingProperties.Leasing leasing = properties.getLeasing();
+        if (!leasing.isEnabled()) {
+            return batchProcessor.process(source, afterId, listener, parallelism);
+        }
+        long rangeSize = Math.max(1, leasing.getRangeSize());
+        Instant since = leaseRepository.currentInstant();
+        ItemBatchProcessor.BatchResult result = ItemBatchProcessor.BatchResult.EMPTY;
+
+        // ranges of this run another node held, waited for once the rest is done
+        List<Long> skipped = new ArrayList<>();
+        long after = afterId;
+        while (!listener.isCancelled()) {
+            // one id read through the index finds the next range with work
+            List<Long> next = source.nextIds(after, 1);
+            if (next.isEmpty()) {
+                break;
+            }
+            long start = Math.floorDiv(next.get(0) - 1, rangeSize) * rangeSize;
+            long end = start + rangeSize;
+            Claim claim = claim(scope, start, since);
+            if (claim == Claim.CLAIMED) {
+                result = result.plus(processRange(scope, start, source, after, end, listener, parallelism));
+            } else if (claim == Claim.HELD) {
+                listener.onRangeSkipped(after, end);
+                skipped.add(start);
+            }
+            after = end;
+        }
+
+        // only the skipped ranges are waited for, other nodes may keep claiming new ranges of the scope for
+        // as long as items arrive. A range is done with once its holder completed it or this run took it over
+        while (takeOver && !skipped.isEmpty() && !listener.isCancelled()) {
+            boolean tookOver = false;
+            for (Iterator<Long> it = skipped.iterator(); it.hasNext() && !listener.isCancelled(); ) {
+                long start = it.next();
+                Claim claim = claim(scope, start, since);
+                if (claim == Claim.CLAIMED) {
+                    log.info("Node {} took over range {} of {}", nodeId, start, scope);
+                    result = result.plus(processRange(scope, start, source, Math.max(afterId, start), start + rangeSize,
+                            listener, parallelism));
+                    tookOver = true;
+                }
+                if (claim != Claim.HELD) {
+                    it.remove();
+                }
+            }
+            if (!tookOver && !skipped.isEmpty()) {
+                Thread.sleep(leasing.getHeartbeatInterval().toMillis());
+            }
+        }
+        return result;
+    }
+
+    private Claim claim(ProcessingLease.Scope scope, long start, Instant since) {
+        ProcessingLease.Key key = new ProcessingLease.Key(scope, start);
+        int claimed = tryClaim(key, since);
+        if (claimed == 0) {
+            try {
+                // a range seen for the first time
+                if (leaseRepository.insert(scope.name(), start) == 1) {
+                    claimed = tryClaim(key, since);
+                }
+            } catch (DataIntegrityViolationException e) {
+                // another node created the row at the same moment and claims it
+            }
+        }
+        if (claimed == 1) {
+            held.put(key, new Lease(key));
+            return Claim.CLAIMED;
+        }
+        return leaseRepository.findById(key).map(lease -> lease.getNodeId() == null ? Claim.DONE : Claim.HELD).orElse(Claim.HELD);
+    }
+
+    private int tryClaim(ProcessingLease.Key key, Instant since) {
+        return leaseRepository.claim(key.getScope(), key.getRangeStart(), nodeId, properties.getLeasing().getTtl().toNanos(), since);
+    }
+
+    // the ids of source in (after, end] through the engine; a lease lost on the way stops the range and
+    // leaves the rest of it to the node that took it over
+    private ItemBatchProcessor.BatchResult processRange(ProcessingLease.Scope scope, long start, ItemBatchProcessor.IdSource source,
+                                                        long after, long end, ItemBatchProcessor.ChunkListener listener,
+                                                        int parallelism) throws InterruptedException {
+        Lease lease = held.get(new ProcessingLease.Key(scope, start));
+        boolean completed = false;
+        try {
+            ItemBatchProcessor.BatchResult result = batchProcessor.process(
+                    (afterId, limit) -> source.nextIds(afterId, limit).stream().takeWhile(id -> id <= end).toList(),
+                    after, new ItemBatchProcessor.ChunkListener() {
+                        @Override
+                        public void onChunkStarted(List<Long> ids) {
+                            listener.onChunkStarted(ids);
+                        }
+
+                        @Override
+                        public void onChunkCommitted(List<Long> ids, int updated) {
+                            listener.onChunkCommitted(ids, updated);
+                        }
+
+                        @Override
+                        public void onChunkFailed(List<Long> ids, RuntimeException e) {
+                            listener.onChunkFailed(ids, e);
+                        }
+
+                        @Override
+                        public void onChunkShed(List<Long> ids) {
+                            listener.onChunkShed(ids);
+                        }
+
+                        @Override
+                        public boolean isCancelled() {
+                            return lease.lost || listener.isCancelled();
+                        }
+                    }, parallelism);
+            if (lease.lost) {
+                listener.onRangeSkipped(after, end);
+            } else {
+                completed = !listener.isCancelled();
+            }
+            return result;
+        } finally {
+            held.remove(lease.key);
+            if (completed) {
+                leaseRepository.complete(scope, start, nodeId);
+            } else if (!lease.lost) {
+                leaseRepository.release(scope, start, nodeId);
+            }
+        }
+    }
+
+    private void renew() {
+        long ttlNanos = properties.getLeasing().getTtl().toNanos();
+        for (Lease lease : held.values()) {
+            try {
+                if (leaseRepository.renew(lease.key.getScope(), lease.key.getRangeStart(), nodeId, ttlNanos) == 0) {
+                    lease.lost = true;
+                    log.warn("Node {} lost its lease on range {} of {}", nodeId, lease.key.getRangeStart(), lease.key.getScope());
+                }
+            } catch (RuntimeException e) {
+                // the next beat tries again, the lease only goes once ttl has passed without one
+                log.warn("Could not renew lease on range {} of {}", lease.key.getRangeStart(), lease.key.getScope(), e);
+            }
+        }
+    }
+
+    // a completed range purged while a run that started before its completion is still going may be
+    // claimed again by that run; it then only finds items that are not UNPROCESSED any more
+    private void purge() {
+        try {
+            int purged = leaseRepository.deleteIdle(properties.getLeasing().getRetention().toNanos());
+            if (purged > 0) {
+                log.debug("Purged {} idle lease(s)", purged);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not purge idle leases", e);
+        }
+    }
+
+    // host name plus a random UUID, cut to fit the 64 characters of node_id
+    private static String defaultNodeId() {
+        String suffix = "-" + UUID.randomUUID();
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host.substring(0, Math.min(host.length(), 64 - suffix.length())) + suffix;
+    }
+
+    private static final class Lease {
+        private final ProcessingLease.Key key;
+        // set once another node has taken the range over
+        private volatile boolean lost;
+
+        private Lease(ProcessingLease.Key key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.metrics.ItemMetrics;
+import com.siemens.internship.model.Item;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// the ItemProcessor stages of one processing run. ItemBatchProcessor hands every chunk to a worker of
+// processingExecutor like any other chunk, so the executor's concurrency limit and the overload policy
+// apply to pipelines too; the worker takes the chunk through the stages one after the other and the
+// persist step after the last stage writes it in one batch. A stage admits at most its concurrency
+// chunks at once. A worker holds one stage at a time, so workers waiting in front of a slow stage never
+// block those further down, and the items in memory are bounded by the in-flight chunks of the run
+@Slf4j
+final class ProcessingPipeline {
+    static final String PERSIST = "persist";
+
+    private final ItemMetrics metrics;
+    private final ItemBatchProcessor.ChunkListener listener;
+    // writes one batch and returns the ids actually written
+    private final Function<List<Item>, Set<Long>> persister;
+    private final List<Stage> stages = new ArrayList<>();
+    private final Stage persist;
+
+    ProcessingPipeline(List<ItemProcessor> processors, ProcessingProperties properties, ItemMetrics metrics,
+                       ItemBatchProcessor.ChunkListener listener, Function<List<Item>, Set<Long>> persister) {
+        this.metrics = metrics;
+        this.listener = listener;
+        this.persister = persister;
+        for (ItemProcessor processor : processors) {
+            stages.add(new Stage(processor.name(), processor, properties));
+        }
+        persist = new Stage(PERSIST, null, properties);
+    }
+
+    // runs the items of one chunk through every stage and persists those that passed them all; failures
+    // are reported to the listener item by item, nothing is thrown. read is when the run read the chunk
+    ItemBatchProcessor.BatchResult process(List<Item> items, long read) {
+        List<Item> remaining = items;
+        long failed = 0;
+        Stage current = null;
+        try {
+            for (Stage stage : stages) {
+                current = stage;
+                List<Item> passed = new ArrayList<>(remaining.size());
+                stage.enter();
+                try {
+                    for (Item item : remaining) {
+                        if (stage.apply(item)) {
+                            passed.add(item);
+                        } else {
+                            failed++;
+                        }
+                    }
+                } finally {
+                    stage.leave();
+                }
+                remaining = passed;
+            }
+            if (remaining.isEmpty()) {
+                return new ItemBatchProcessor.BatchResult(0, failed, 0, 0);
+            }
+            current = persist;
+            persist.enter();
+            try {
+                return persist(remaining, read).plus(new ItemBatchProcessor.BatchResult(0, failed, 0, 0));
+            } finally {
+                persist.leave();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            List<Long> ids = remaining.stream().map(Item::getId).toList();
+            metrics.recordChunkFailure(ids.size());
+            listener.onChunkFailed(ids, new IllegalStateException("Interrupted in front of stage " + current.name));
+            return new ItemBatchProcessor.BatchResult(0, failed + ids.size(), 0, 0);
+        }
+    }
+
+    private ItemBatchProcessor.BatchResult persist(List<Item> batch, long read) {
+        List<Long> ids = batch.stream().map(Item::getId).toList();
+        long start = System.nanoTime();
+        try {
+            Set<Long> written = persister.apply(batch);
+            persist.busy.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            metrics.recordChunk(start, written.size());
+            metrics.recordItems(read, written.size());
+            List<Long> skipped = ids.stream().filter(id -> !written.contains(id)).toList();
+            listener.onChunkCommitted(ids.stream().filter(written::contains).toList(), written.size());
+            // changed by a client since they were read: not processed, so reported like a failure
+            if (!skipped.isEmpty()) {
+                metrics.recordChunkFailure(skipped.size());
+                listener.onChunkFailed(skipped, new OptimisticLockingFailureException("Items changed while being processed"));
+            }
+            return new ItemBatchProcessor.BatchResult(written.size(), skipped.size(), 0, 0);
+        } catch (RuntimeException e) {
+            metrics.recordChunkFailure(ids.size());
+            listener.onChunkFailed(ids, e);
+            log.error("Failed to persist batch of {} items starting at ID {}", ids.size(), ids.get(0), e);
+            return new ItemBatchProcessor.BatchResult(0, ids.size(), 0, 0);
+        }
+    }
+
+    private final class Stage {
+        private final String name;
+        private final ItemProcessor processor;
+        private final Semaphore slots;
+        private final Timer busy;
+        private final Timer waiting;
+
+        private Stage(String name, ItemProcessor processor, ProcessingProperties properties) {
+            ProcessingProperties.Stage settings = properties.getStages().getOrDefault(name, new ProcessingProperties.Stage());
+            this.name = name;
+            this.processor = processor;
+            this.slots = new Semaphore(settings.getConcurrency() > 0 ? settings.getConcurrency() : Math.max(1, properties.getParallelism()));
+            this.busy = metrics.stageTimer(name);
+            this.waiting = metrics.stageWaitTimer(name);
+        }
+
+        private void enter() throws InterruptedException {
+            long start = System.nanoTime();
+            slots.acquire();
+            waiting.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        private void leave() {
+            slots.release();
+        }
+
+        // false if the processor failed on the item, which is then reported and dropped from the chunk
+        private boolean apply(Item item) {
+            long start = System.nanoTime();
+            try {
+                processor.process(item);
+                return true;
+            } catch (RuntimeException e) {
+                metrics.recordChunkFailure(1);
+                listener.onChunkFailed(List.of(item.getId()), e);
+                log.warn("Stage {} failed on item {}: {}", name, item.getId(), e.toString());
+                return false;
+            } finally {
+                busy.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.ConcurrencyLimitedExecutor;
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.model.ProcessingLease;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// background processing of new UNPROCESSED items; the bean only exists when items.processing.schedule.enabled
+// is set at startup, ticks check the flag again so processing can be paused at runtime. Each tick processes
+// up to limit chunks, limit of them in parallel, and runs the next batch right away as long as it found a
+// full batch of work, so new items are picked up within about one interval.
+// limit adapts AIMD-style: +1 after a full tick without overload, times backoff-ratio after a tick that
+// saw chunk latency or foreground HTTP latency well above its running average, queued executor tasks
+// or a failed chunk. Ticks are skipped while a processing job runs, the job covers the same items.
+// The ticks of one pass over the items share a checkpointed run and a cursor: each tick continues
+// where the previous one stopped, through leased ranges like any run, and the pass ends with the first
+// tick that runs out of work. Items that failed are on record and left to retry runs, so a poison item
+// is tried once instead of on every tick. Ticks run on Spring's shared task scheduler; on shutdown the
+// running tick is cancelled through its listener and ends the pass itself once its chunks are in
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "items.processing.schedule", name = "enabled", havingValue = "true")
+public class ProcessingScheduler {
+    // smoothing of the running latency averages the samples are compared with
+    private static final double ALPHA = 0.1;
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ProcessingJobRegistry jobRegistry;
+
+    @Autowired
+    private ProcessingLeases leases;
+
+    @Autowired
+    private ProcessingCheckpoints checkpoints;
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Autowired
+    @Qualifier("processingExecutor")
+    private Executor processingExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Spring's shared scheduler, shut down by the context
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private volatile int limit;
+
+    // set on shutdown, cancels the running tick
+    private volatile boolean stopping;
+
+    // the current pass, null between passes; guarded by this, like the rest of the tick state
+    private ProcessingCheckpoints.Run pass;
+
+    // cursor is where the next tick of the pass starts
+    private long cursor;
+    private final Average chunkLatency = new Average();
+    private final Average apiLatency = new Average();
+    private long apiCount;
+    private double apiTotalNanos;
+
+    @PostConstruct
+    void start() {
+        limit = Math.max(1, properties.getSchedule().getMinConcurrency());
+        Gauge.builder("item.processing.scheduler.limit", this, ProcessingScheduler::getLimit)
+                .description("Chunks the background processing scheduler processes per tick and in parallel")
+                .register(meterRegistry);
+        Duration interval = properties.getSchedule().getInterval();
+        taskScheduler.scheduleWithFixedDelay(this::tick, Instant.now().plus(interval), interval);
+    }
+
+    // cancels the running tick and waits until it has ended the pass; without a running tick the pass is
+    // ended here. A pass cut short is resumed from its checkpoint by the next run
+    @PreDestroy
+    void stop() {
+        stopping = true;
+        synchronized (this) {
+            if (pass != null) {
+                finishPass(false);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // batches back to back while they find a full batch of work, then the scheduler waits one interval
+    private synchronized void tick() {
+        try {
+            while (!stopping && properties.getSchedule().isEnabled() && jobRegistry.runningCount() == 0 && runBatch()) {
+                // the next batch starts right away
+            }
+        } catch (InterruptedException e) {
+            // chunks may still be in flight, so the pass is left RUNNING for the next start to interrupt
+            pass = null;
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Scheduled processing tick failed", e);
+        }
+    }
+
+    private void finishPass(boolean completed) {
+        try {
+            pass.finish(completed);
+        } catch (RuntimeException e) {
+            log.warn("Could not record the end of scheduled pass {}", pass.getRunId(), e);
+        } finally {
+            pass = null;
+        }
+    }
+
+    // processes one batch and adapts the limit; true when the next batch should start right away
+    private boolean runBatch() throws InterruptedException {
+        ProcessingProperties.Schedule schedule = properties.getSchedule();
+        int current = limit;
+        int min = Math.max(1, schedule.getMinConcurrency());
+        int max = Math.max(min, schedule.getMaxConcurrency() > 0 ? schedule.getMaxConcurrency() : properties.getParallelism());
+
+        if (pass == null) {
+            pass = checkpoints.begin(UUID.randomUUID().toString());
+            cursor = pass.resumeAfter();
+        }
+        TickListener listener = new TickListener(current, () -> stopping);
+        ItemBatchProcessor.BatchResult result = leases.processAvailable(ProcessingLease.Scope.UNPROCESSED,
+                checkpoints.withoutFailures(batchProcessor.unprocessed()), cursor, pass.track(listener), current);
+        cursor = Math.max(cursor, listener.lastId.get());
+        // the chunks of the batch are all in, so the pass can be ended without racing them
+        if (stopping) {
+            finishPass(false);
+            return false;
+        }
+        // only a tick that used its whole budget shows that a higher limit would have had work to do
+        boolean full = listener.usedBudget();
+        if (!full) {
+            finishPass(true);
+        }
+        if (result.chunks() == 0) {
+            return false;
+        }
+
+        boolean overloaded = listener.failed.get() > 0
+                | chunkLatency.exceeds(listener.meanNanos(), schedule.getLatencyTolerance())
+                | apiLatency.exceeds(apiMeanNanosSinceLastTick(), schedule.getLatencyTolerance())
+                | queued(taskExecutor) + queued(processingExecutor) > schedule.getMaxQueuedTasks();
+        if (overloaded) {
+            limit = Math.max(min, (int) (current * schedule.getBackoffRatio()));
+        } else if (full) {
+            limit = Math.min(max, current + 1);
+        } else {
+            limit = Math.min(max, Math.max(min, current));
+        }
+        log.debug("Scheduled processing: {} items in {} chunks, limit {} -> {}{}", result.processed(), result.chunks(),
+                current, limit, overloaded ? " (overloaded)" : "");
+        // at the lowest limit and still overloaded, the API gets a full interval to recover
+        return full && !(overloaded && current == min);
+    }
+
+    // mean latency of the HTTP requests served since the previous tick, NaN when there were none;
+    // processing and actuator requests are not foreground traffic
+    private double apiMeanNanosSinceLastTick() {
+        long count = 0;
+        double totalNanos = 0;
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            String uri = timer.getId().getTag("uri");
+            if (uri != null && (uri.startsWith("/api/items/process") || uri.startsWith("/actuator"))) {
+                continue;
+            }
+            count += timer.count();
+            totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+        }
+        long requests = count - apiCount;
+        double nanos = totalNanos - apiTotalNanos;
+        apiCount = count;
+        apiTotalNanos = totalNanos;
+        return requests > 0 ? nanos / requests : Double.NaN;
+    }
+
+    private static int queued(Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            return pool.getQueueSize();
+        }
+        if (executor instanceof ConcurrencyLimitedExecutor limited) {
+            return limited.waitingCount();
+        }
+        return 0;
+    }
+
+    // exponentially weighted running average; a sample is compared with the average before it is added
+    private static final class Average {
+        private double value = Double.NaN;
+
+        boolean exceeds(double sample, double tolerance) {
+            if (Double.isNaN(sample)) {
+                return false;
+            }
+            if (Double.isNaN(value)) {
+                value = sample;
+                return false;
+            }
+            boolean exceeds = sample > value * tolerance;
+            value += ALPHA * (sample - value);
+            return exceeds;
+        }
+    }
+
+    // one tick: stops the run after budget chunks or on shutdown, records the highest id it got past and the
+    // time from a chunk being handed to the workers until its transaction committed
+    private static final class TickListener implements ItemBatchProcessor.ChunkListener {
+        private final int budget;
+        private final BooleanSupplier stopping;
+        private final AtomicInteger chunks = new AtomicInteger();
+        private final AtomicLong lastId = new AtomicLong();
+        private final Map<Long, Long> started = new ConcurrentHashMap<>();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong committed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        private TickListener(int budget, BooleanSupplier stopping) {
+            this.budget = budget;
+            this.stopping = stopping;
+        }
+
+        @Override
+        public void onChunkStarted(List<Long> ids) {
+            chunks.incrementAndGet();
+            lastId.accumulateAndGet(ids.get(ids.size() - 1), Math::max);
+            started.put(ids.get(0), System.nanoTime());
+        }
+
+        // a range another node holds is its work, the pass moves past it
+        @Override
+        public void onRangeSkipped(long afterId, long lastId) {
+            this.lastId.accumulateAndGet(lastId, Math::max);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return usedBudget() || stopping.getAsBoolean();
+        }
+
+        boolean usedBudget() {
+            return chunks.get() >= budget;
+        }
+
+        @Override
+        public void onChunkCommitted(List<Long> ids, int updated) {
+            Long start = started.remove(ids.get(0));
+            if (start != null) {
+                totalNanos.addAndGet(System.nanoTime() - start);
+                committed.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onChunkFailed(List<Long> ids, RuntimeException e) {
+            started.remove(ids.get(0));
+            failed.incrementAndGet();
+        }
+
+        @Override
+        public void onChunkShed(List<Long> ids) {
+            // a shed chunk means the workers were saturated
+            started.remove(ids.get(0));
+            failed.incrementAndGet();
+        }
+
+        double meanNanos() {
+            long count = committed.get();
+            return count > 0 ? (double) totalNanos.get() / count : Double.NaN;
+        }
+    }
+}
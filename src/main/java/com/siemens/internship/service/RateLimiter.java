@@ -0,0 +1,147 @@
+package com.siemens.internship.service;
+
+import com.siemens.internship.config.RateLimitProperties;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// token buckets per client and endpoint. A bucket is a single AtomicLong holding the time at which it
+// will be full again (GCRA, the generic cell rate algorithm): a request is admitted when moving that
+// time one refill interval ahead keeps it within burst intervals of now, which is a token bucket
+// updated by one compare-and-set, without locks or a refill thread. A full bucket is no different from
+// a missing one, so a background sweep drops full buckets and the map only holds recently active clients
+@Component
+public class RateLimiter {
+    // outcome of one request; remaining is the number of requests the client can send right away,
+    // resetSeconds the time until its bucket is full again or, when rejected, until it may retry
+    public record Decision(boolean allowed, int limit, long remaining, long resetSeconds) {
+        static final Decision UNLIMITED = new Decision(true, 0, 0, 0);
+    }
+
+    // immutable, so a limit is replaced as a whole while requests read it
+    public record Limit(double requestsPerSecond, int burst) {
+        public Limit {
+            if (requestsPerSecond < 0 || burst < 1) {
+                throw new IllegalArgumentException("requestsPerSecond must be >= 0 and burst >= 1");
+            }
+        }
+
+        boolean unlimited() {
+            return requestsPerSecond == 0;
+        }
+
+        long intervalNanos() {
+            return Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+        }
+    }
+
+    private record Key(String client, String endpoint) {
+    }
+
+    // shared by the clients that arrive while maxClients buckets exist, so a flood of client ids
+    // cannot grow the map without bound
+    private static final String OVERFLOW = "";
+
+    @Autowired
+    private RateLimitProperties properties;
+
+    // Spring's shared scheduler, shut down by the context
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private final Map<Key, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // copy-on-write, readers only do a volatile read
+    private volatile Limit defaults;
+    private volatile Map<String, Limit> endpoints;
+
+    @PostConstruct
+    void init() {
+        defaults = limitOf(properties.getDefaults());
+        Map<String, Limit> limits = new HashMap<>();
+        properties.getEndpoints().forEach((endpoint, limit) -> limits.put(endpoint, limitOf(limit)));
+        endpoints = Map.copyOf(limits);
+
+        Duration interval = properties.getSweepInterval();
+        taskScheduler.scheduleWithFixedDelay(this::sweep, Instant.now().plus(interval), interval);
+    }
+
+    public Decision tryAcquire(String client, String endpoint) {
+        Limit limit = limitFor(endpoint);
+        if (!properties.isEnabled() || limit.unlimited()) {
+            return Decision.UNLIMITED;
+        }
+        long interval = limit.intervalNanos();
+        long capacity = interval * limit.burst();
+        long now = System.nanoTime();
+        AtomicLong bucket = bucketOf(client, endpoint, now);
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + interval;
+            long ahead = next - now;
+            if (ahead > capacity) {
+                return new Decision(false, limit.burst(), 0, ceilSeconds(ahead - capacity));
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return new Decision(true, limit.burst(), (capacity - ahead) / interval, ceilSeconds(ahead));
+            }
+        }
+    }
+
+    // a new bucket is full, its full-again time is now
+    private AtomicLong bucketOf(String client, String endpoint, long now) {
+        AtomicLong bucket = buckets.get(new Key(client, endpoint));
+        if (bucket != null) {
+            return bucket;
+        }
+        String owner = buckets.size() < properties.getMaxClients() ? client : OVERFLOW;
+        return buckets.computeIfAbsent(new Key(owner, endpoint), key -> new AtomicLong(now));
+    }
+
+    // drops the buckets that are full again. A request racing with the removal may update the dropped
+    // bucket, which at worst grants that client one extra request
+    void sweep() {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+    }
+
+    public Limit limitFor(String endpoint) {
+        return endpoints.getOrDefault(endpoint, defaults);
+    }
+
+    public Limit getDefaults() {
+        return defaults;
+    }
+
+    public Map<String, Limit> getEndpoints() {
+        return endpoints;
+    }
+
+    // takes effect with the next request, buckets keep their state
+    public synchronized void setLimit(String endpoint, Limit limit) {
+        Map<String, Limit> limits = new HashMap<>(endpoints);
+        limits.put(endpoint, limit);
+        endpoints = Map.copyOf(limits);
+    }
+
+    public synchronized void setDefaults(Limit limit) {
+        defaults = limit;
+    }
+
+    private static Limit limitOf(RateLimitProperties.Limit limit) {
+        return new Limit(limit.getRequestsPerSecond(), limit.getBurst());
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,15 @@
+-- baseline: the item table as mapped by the Item entity
+CREATE SEQUENCE item_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE item (
+    id          BIGINT       NOT NULL,
+    name        VARCHAR(255),
+    description VARCHAR(255),
+    status      VARCHAR(16)  CHECK (status IN ('UNPROCESSED', 'PROCESSED')),
+    email       VARCHAR(255),
+    version     BIGINT       NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- processing selects UNPROCESSED rows in id order
+CREATE INDEX idx_item_status_id ON item (status, id);
@@ -0,0 +1,10 @@
+-- search by email domain: a derived column, kept in sync by the application, so it can be indexed
+ALTER TABLE item ADD COLUMN email_domain VARCHAR(255);
+
+-- validated addresses hold exactly one '@'
+UPDATE item SET email_domain = LOWER(SUBSTRING(email, LOCATE('@', email) + 1)) WHERE LOCATE('@', email) > 0;
+
+-- exact email, email domain and name prefix filters; the (..., id) indexes also serve the keyset order
+CREATE INDEX idx_item_email ON item (email);
+CREATE INDEX idx_item_email_domain_id ON item (email_domain, id);
+CREATE INDEX idx_item_name_id ON item (name, id);
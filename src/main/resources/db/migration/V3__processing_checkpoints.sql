@@ -0,0 +1,23 @@
+-- progress of processing runs, one row per run
+CREATE TABLE processing_checkpoint (
+    run_id       VARCHAR(36)  NOT NULL,
+    state        VARCHAR(16)  NOT NULL CHECK (state IN ('RUNNING', 'COMPLETED', 'INTERRUPTED', 'RESUMED')),
+    resume_after BIGINT       NOT NULL,
+    processed    BIGINT       NOT NULL,
+    failed       BIGINT       NOT NULL,
+    started_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    updated_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (run_id)
+);
+
+-- the latest interrupted run is looked up when a new run starts
+CREATE INDEX idx_processing_checkpoint_state ON processing_checkpoint (state, updated_at);
+
+-- items waiting for a retry run
+CREATE TABLE processing_failure (
+    item_id   BIGINT       NOT NULL,
+    run_id    VARCHAR(36)  NOT NULL,
+    error     VARCHAR(255),
+    failed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (item_id)
+);
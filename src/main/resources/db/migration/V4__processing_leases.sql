@@ -0,0 +1,16 @@
+-- node that started each run, so a restarting node only interrupts its own runs
+ALTER TABLE processing_checkpoint ADD COLUMN node_id VARCHAR(64);
+
+-- id ranges leased by the nodes sharing the database, one row per scope and range
+CREATE TABLE processing_lease (
+    scope        VARCHAR(16)  NOT NULL CHECK (scope IN ('UNPROCESSED', 'RETRY')),
+    range_start  BIGINT       NOT NULL,
+    node_id      VARCHAR(64),
+    expires_at   TIMESTAMP(6) WITH TIME ZONE,
+    claimed_at   TIMESTAMP(6) WITH TIME ZONE,
+    completed_at TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (scope, range_start)
+);
+
+-- leases of a node are released together when it restarts
+CREATE INDEX idx_processing_lease_node ON processing_lease (node_id);
@@ -0,0 +1,12 @@
+-- outbox of item changes, the cursor of the change feed is seq
+CREATE TABLE item_change (
+    seq        BIGINT       GENERATED BY DEFAULT AS IDENTITY,
+    item_id    BIGINT       NOT NULL,
+    type       VARCHAR(16)  NOT NULL CHECK (type IN ('CREATED', 'UPDATED', 'DELETED', 'PROCESSED')),
+    status     VARCHAR(16)  CHECK (status IN ('UNPROCESSED', 'PROCESSED')),
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (seq)
+);
+
+-- changes past retention are deleted by age
+CREATE INDEX idx_item_change_changed_at ON item_change (changed_at);
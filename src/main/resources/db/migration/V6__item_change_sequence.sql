@@ -0,0 +1,10 @@
+-- seqs of item_change are handed out from this row inside the recording transaction, in commit order
+CREATE TABLE item_change_sequence (
+    id       INTEGER NOT NULL,
+    last_seq BIGINT  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO item_change_sequence (id, last_seq) SELECT 1, COALESCE(MAX(seq), 0) FROM item_change;
+
+ALTER TABLE item_change ALTER COLUMN seq DROP IDENTITY;
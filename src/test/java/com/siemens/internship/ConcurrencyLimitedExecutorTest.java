@@ -0,0 +1,97 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ConcurrencyLimitedExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimitedExecutorTest {
+
+    @Test
+    void execute_neverRunsMoreTasksThanTheLimit() throws Exception {
+        ExecutorService unbounded = Executors.newCachedThreadPool();
+        try (ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(unbounded, 3)) {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(20);
+
+            for (int i = 0; i < 20; i++) {
+                executor.execute(() -> {
+                    int now = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(now, Math::max);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            // every task eventually runs, but never more than 3 at the same time
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(maxRunning.get()).isLessThanOrEqualTo(3);
+        } finally {
+            unbounded.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_runsATaskInterruptedWhileWaitingOnceAPermitFrees() throws Exception {
+        Queue<Thread> threads = new ConcurrentLinkedQueue<>();
+        Executor delegate = task -> {
+            Thread thread = new Thread(task);
+            threads.add(thread);
+            thread.start();
+        };
+        try (ConcurrencyLimitedExecutor executor = new ConcurrencyLimitedExecutor(delegate, 1)) {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicBoolean firstDone = new AtomicBoolean();
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                firstDone.set(true);
+            });
+            CountDownLatch ran = new CountDownLatch(1);
+            AtomicBoolean afterFirst = new AtomicBoolean();
+            AtomicBoolean interrupted = new AtomicBoolean();
+            executor.execute(() -> {
+                afterFirst.set(firstDone.get());
+                interrupted.set(Thread.currentThread().isInterrupted());
+                ran.countDown();
+            });
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (executor.waitingCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(executor.waitingCount()).isEqualTo(1);
+            threads.stream().skip(1).findFirst().orElseThrow().interrupt();
+
+            // the interrupted task is not dropped, and still only runs once the permit is free
+            assertThat(ran.await(200, TimeUnit.MILLISECONDS)).isFalse();
+            release.countDown();
+            assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(afterFirst).isTrue();
+            assertThat(interrupted).isTrue();
+            for (Thread thread : threads) {
+                thread.join(5_000);
+            }
+            assertThat(executor.availablePermits()).isEqualTo(1);
+        }
+    }
+}
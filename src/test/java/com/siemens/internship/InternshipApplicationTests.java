@@ -1,22 +1,48 @@
 package com.siemens.internship;
 
+import com.siemens.internship.config.ItemBinaryHttpMessageConverter;
+import com.siemens.internship.config.RateLimitJmxExtension;
+import com.siemens.internship.exception.BadRequestException;
+import com.siemens.internship.exception.InvalidItemException;
+import com.siemens.internship.exception.PreconditionFailedException;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemBinaryCodec;
+import com.siemens.internship.model.ItemStatus;
 import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemBulkService;
+import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ProcessingJob;
+import com.siemens.internship.service.RateLimiter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
-
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// JMX is switched off in tests unless asked for, it carries the write operations of the ratelimits endpoint
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.jmx.enabled=true")
 class InternshipApplicationTests {
 
     // the port number of the server
@@ -31,6 +57,18 @@ class InternshipApplicationTests {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemBulkService itemBulkService;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private RateLimitJmxExtension rateLimitJmxExtension;
+
     // baseUrl is the base URL for the API
     private String baseUrl;
 
@@ -51,7 +89,7 @@ class InternshipApplicationTests {
     // createAndGetItem_successfully() method tests the creation and retrieval of an item
     @Test
     void createAndGetItem_successfully() {
-        Item item = new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com");
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
         // postForEntity() method is used to send a POST request to create an item
         ResponseEntity<Item> response = restTemplate.postForEntity(baseUrl, item, Item.class);
 
@@ -71,7 +109,7 @@ class InternshipApplicationTests {
     // getItemById_notFound() method tests the retrieval of an item by ID when it does not exist
     @Test
     void getAllItems_returnsList() {
-        Item item1 = new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com");
+        Item item1 = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
         itemRepository.save(item1);
 
         // getForEntity() method is used to send a GET request to retrieve all items
@@ -82,10 +120,291 @@ class InternshipApplicationTests {
         assertThat(response.getBody()).hasSize(1);
     }
 
+    // getAllItems_pagesWithCursor() method tests that the list endpoint pages by id with a next link
+    @Test
+    void getAllItems_pagesWithCursor() {
+        for (int i = 1; i <= 3; i++) {
+            itemRepository.save(new Item(null, "Item " + i, "Description " + i, ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+
+        ResponseEntity<Item[]> first = restTemplate.getForEntity(baseUrl + "?limit=2", Item[].class);
+        assertThat(first.getBody()).hasSize(2);
+        String next = first.getHeaders().getFirst(HttpHeaders.LINK);
+        assertThat(next).contains("rel=\"next\"");
+
+        // following the cursor of the first page returns the remaining item and no further link
+        long cursor = Objects.requireNonNull(first.getBody())[1].getId();
+        ResponseEntity<Item[]> second = restTemplate.getForEntity(baseUrl + "?limit=2&after=" + cursor, Item[].class);
+        assertThat(second.getBody()).hasSize(1);
+        assertThat(second.getHeaders().getFirst(HttpHeaders.LINK)).isNull();
+    }
+
+    // searchItems_filtersAndFollowsNextLink() method tests the search endpoint on the database indexes
+    @Test
+    void searchItems_filtersAndFollowsNextLink() {
+        itemRepository.save(new Item(null, "Banana", "Description", ItemStatus.UNPROCESSED, "a@example.com"));
+        itemRepository.save(new Item(null, "Apple 2", "Description", ItemStatus.UNPROCESSED, "b@EXAMPLE.com"));
+        itemRepository.save(new Item(null, "Apple 1", "Description", ItemStatus.UNPROCESSED, "c@example.com"));
+        itemRepository.save(new Item(null, "Apple 3", "Description", ItemStatus.PROCESSED, "d@example.com"));
+        itemRepository.save(new Item(null, "Apple 4", "Description", ItemStatus.UNPROCESSED, "e@other.org"));
+
+        String query = "/search?status=UNPROCESSED&emailDomain=Example.com&namePrefix=Apple&sort=name&limit=1";
+        ResponseEntity<Item[]> first = restTemplate.getForEntity(baseUrl + query, Item[].class);
+        assertThat(first.getBody()).extracting(Item::getName).containsExactly("Apple 1");
+
+        // the next link carries the filters and the (name, id) cursor of the last item
+        String next = Objects.requireNonNull(first.getHeaders().getFirst(HttpHeaders.LINK));
+        String path = next.substring(next.indexOf("/api/items") + "/api/items".length(), next.indexOf('>'));
+        // already encoded, so it must not go through URI template expansion again
+        ResponseEntity<Item[]> second = restTemplate.getForEntity(URI.create(baseUrl + path), Item[].class);
+        assertThat(second.getBody()).extracting(Item::getName).containsExactly("Apple 2");
+    }
+
+    // selectFields_returnsOnlyTheRequestedProperties() method tests ?fields= projections on the database
+    @Test
+    void selectFields_returnsOnlyTheRequestedProperties() {
+        Item first = itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        itemRepository.save(new Item(null, "Item 2", "Description 2", ItemStatus.PROCESSED, "email@email.com"));
+
+        ResponseEntity<List<Map<String, Object>>> page = restTemplate.exchange(baseUrl + "?limit=1&fields=status,id", HttpMethod.GET,
+                null, new ParameterizedTypeReference<>() {
+                });
+        assertThat(page.getBody()).containsExactly(Map.of("id", first.getId().intValue(), "status", "UNPROCESSED"));
+        // the next page selects the same fields
+        assertThat(page.getHeaders().getFirst(HttpHeaders.LINK)).contains("&fields=id,status>");
+
+        // sorted by name, the name is read for the keyset but not returned
+        ResponseEntity<List<Map<String, Object>>> search = restTemplate.exchange(baseUrl + "/search?sort=name&status=PROCESSED&fields=email",
+                HttpMethod.GET, null, new ParameterizedTypeReference<>() {
+                });
+        assertThat(search.getBody()).containsExactly(Map.of("email", "email@email.com"));
+
+        ResponseEntity<Map<String, Object>> single = restTemplate.exchange(baseUrl + "/" + first.getId() + "?fields=name", HttpMethod.GET,
+                null, new ParameterizedTypeReference<>() {
+                });
+        assertThat(single.getBody()).isEqualTo(Map.of("name", "Item 1"));
+        assertThat(single.getHeaders().getETag()).isEqualTo("\"0\"");
+
+        ResponseEntity<String> unknown = restTemplate.getForEntity(baseUrl + "?fields=id,secret", String.class);
+        assertThat(unknown.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    // getItemById_beyondRateLimit_isRejected() method tests the per-client token bucket in front of the API
+    @Test
+    void getItemById_beyondRateLimit_isRejected() {
+        Item created = itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        RateLimiter.Limit limit = rateLimiter.limitFor("getItemById");
+        rateLimiter.setLimit("getItemById", new RateLimiter.Limit(0.01, 2));
+        try {
+            String url = baseUrl + "/" + created.getId();
+
+            ResponseEntity<String> first = restTemplate.getForEntity(url, String.class);
+            assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(first.getHeaders().getFirst("RateLimit-Limit")).isEqualTo("2");
+            assertThat(first.getHeaders().getFirst("RateLimit-Remaining")).isEqualTo("1");
+            restTemplate.getForEntity(url, String.class);
+
+            ResponseEntity<String> rejected = restTemplate.getForEntity(url, String.class);
+            assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(rejected.getHeaders().getFirst("RateLimit-Remaining")).isEqualTo("0");
+            assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("100");
+
+            // clients are keyed by remote address, so naming itself anew does not buy a client a fresh bucket
+            for (String clientId : List.of("greedy", "other", "yet-another")) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set("X-Client-Id", clientId);
+                assertThat(restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class).getStatusCode())
+                        .isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            }
+        } finally {
+            rateLimiter.setLimit("getItemById", limit);
+            // the drained bucket of this host would throttle the other tests
+            ((Map<?, ?>) Objects.requireNonNull(ReflectionTestUtils.getField(rateLimiter, "buckets"))).clear();
+        }
+    }
+
+    // rateLimits_areReadOnlyOverHttp() method tests that only JMX can change the limits
+    @Test
+    void rateLimits_areReadOnlyOverHttp() throws Exception {
+        RateLimiter.Limit limit = rateLimiter.limitFor("getAllItems");
+        try {
+            Map<String, Object> change = Map.of("endpoint", "getAllItems", "requestsPerSecond", 0, "burst", 1);
+            ResponseEntity<String> post = restTemplate.postForEntity("http://localhost:" + port + "/actuator/ratelimits", change, String.class);
+            assertThat(post.getStatusCode()).isEqualTo(HttpStatus.METHOD_NOT_ALLOWED);
+            assertThat(rateLimiter.limitFor("getAllItems")).isEqualTo(limit);
+
+            assertThat(ManagementFactory.getPlatformMBeanServer().queryNames(
+                    new ObjectName("org.springframework.boot:type=Endpoint,name=Ratelimits,*"), null)).isNotEmpty();
+            rateLimitJmxExtension.setLimit("getAllItems", 0, 1);
+            assertThat(rateLimiter.limitFor("getAllItems")).isEqualTo(new RateLimiter.Limit(0, 1));
+        } finally {
+            rateLimiter.setLimit("getAllItems", limit);
+        }
+    }
+
+
+    // suggestNames_returnsNamesByPrefix() method tests type-ahead without the in-memory index
+    @Test
+    void suggestNames_returnsNamesByPrefix() {
+        itemRepository.save(new Item(null, "Apple", "Description", ItemStatus.UNPROCESSED, "a@example.com"));
+        itemRepository.save(new Item(null, "Apricot", "Description", ItemStatus.UNPROCESSED, "a@example.com"));
+        itemRepository.save(new Item(null, "Banana", "Description", ItemStatus.UNPROCESSED, "a@example.com"));
+
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/names?prefix=Ap", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).contains("\"Apple\"", "\"Apricot\"").doesNotContain("Banana");
+    }
+
+    // streamAllItems_writesNdjson() method tests the newline-delimited JSON streaming mode
+    @Test
+    void streamAllItems_writesNdjson() {
+        itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        itemRepository.save(new Item(null, "Item 2", "Description 2", ItemStatus.UNPROCESSED, "email@email.com"));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType("application/x-ndjson")));
+        ResponseEntity<String> response = restTemplate.exchange(baseUrl, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        // one JSON document per line
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(Objects.requireNonNull(response.getBody()).split("\n")).hasSize(2)
+                .allMatch(line -> line.startsWith("{") && line.contains("\"name\":\"Item"));
+    }
+
+    // getAllItems_binaryGzip_decodesToTheJsonPage() method tests the compact encoding and response compression
+    @Test
+    void getAllItems_binaryGzip_decodesToTheJsonPage() throws Exception {
+        for (int i = 1; i <= 60; i++) {
+            itemRepository.save(new Item(null, "Item " + i, "Description " + i, ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+        // the JDK client leaves Content-Encoding to the caller, so the compressed bytes are seen as sent
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<byte[]> response = client.send(java.net.http.HttpRequest.newBuilder(URI.create(baseUrl))
+                .header(HttpHeaders.ACCEPT, ItemBinaryHttpMessageConverter.MEDIA_TYPE_VALUE)
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue(HttpHeaders.CONTENT_ENCODING)).contains("gzip");
+        List<Item> items = new ArrayList<>();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            ItemBinaryCodec.readHeader(in);
+            for (Item item = ItemBinaryCodec.read(in); item != null; item = ItemBinaryCodec.read(in)) {
+                items.add(item);
+            }
+        }
+        Item[] json = restTemplate.getForObject(baseUrl, Item[].class);
+        assertThat(items).hasSize(60).containsExactly(json);
+    }
+
+    // createItem_binaryBody_isDecodedAndAnsweredInKind() method tests a POST in the compact encoding
+    @Test
+    void createItem_binaryBody_isDecodedAndAnsweredInKind() throws Exception {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ItemBinaryCodec.Writer writer = new ItemBinaryCodec.Writer(body, 8192);
+        writer.write(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        writer.flush();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<byte[]> response = client.send(java.net.http.HttpRequest.newBuilder(URI.create(baseUrl))
+                .header(HttpHeaders.CONTENT_TYPE, ItemBinaryHttpMessageConverter.MEDIA_TYPE_VALUE)
+                .header(HttpHeaders.ACCEPT, ItemBinaryHttpMessageConverter.MEDIA_TYPE_VALUE)
+                .POST(java.net.http.HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(201);
+        InputStream in = new ByteArrayInputStream(response.body());
+        ItemBinaryCodec.readHeader(in);
+        Item created = ItemBinaryCodec.read(in);
+        assertThat(itemRepository.findById(created.getId())).contains(created);
+    }
+
+    // bulkCreate_reportsEveryRow() method tests bulk creation with one invalid row among valid ones
+    @Test
+    void bulkCreate_reportsEveryRow() {
+        List<Item> items = List.of(
+                new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"),
+                new Item(null, "", "Description 2", ItemStatus.UNPROCESSED, "email@email.com"),
+                new Item(null, "Item 3", "Description 3", ItemStatus.UNPROCESSED, "email@email.com"));
+
+        ResponseEntity<ItemBulkService.RowResult[]> response = restTemplate.postForEntity(baseUrl + "/bulk", items, ItemBulkService.RowResult[].class);
+
+        // one result per row, in request order; the invalid row carries the validation message
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        ItemBulkService.RowResult[] results = Objects.requireNonNull(response.getBody());
+        assertThat(results).extracting(ItemBulkService.RowResult::outcome).containsExactly(
+                ItemBulkService.Outcome.CREATED, ItemBulkService.Outcome.INVALID, ItemBulkService.Outcome.CREATED);
+        assertThat(results[1].errors()).anyMatch(e -> e.startsWith("name "));
+        assertThat(itemRepository.count()).isEqualTo(2);
+    }
+
+    // bulkCreate_acceptsNdjson() method tests bulk creation from a newline-delimited JSON stream
+    @Test
+    void bulkCreate_acceptsNdjson() {
+        String body = "{\"name\":\"Item 1\",\"description\":\"Description 1\",\"status\":\"UNPROCESSED\",\"email\":\"email@email.com\"}\n"
+                + "{\"name\":\"Item 2\",\"description\":\"Description 2\",\"status\":\"UNPROCESSED\",\"email\":\"email@email.com\"}\n";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        ResponseEntity<ItemBulkService.RowResult[]> response = restTemplate.exchange(
+                baseUrl + "/bulk", HttpMethod.POST, new HttpEntity<>(body, headers), ItemBulkService.RowResult[].class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).hasSize(2).allMatch(r -> r.outcome() == ItemBulkService.Outcome.CREATED);
+        assertThat(itemRepository.count()).isEqualTo(2);
+    }
+
+    // bulkCreate_malformedPartway_reportsTheWrittenRowsAndThePosition() method tests a body that breaks after two rows
+    @Test
+    void bulkCreate_malformedPartway_reportsTheWrittenRowsAndThePosition() {
+        String body = "{\"name\":\"Item 1\",\"description\":\"Description 1\",\"status\":\"UNPROCESSED\",\"email\":\"email@email.com\"}\n"
+                + "{\"name\":\"Item 2\",\"description\":\"Description 2\",\"status\":\"UNPROCESSED\",\"email\":\"email@email.com\"}\n"
+                + "{\"name\":\"Item 3\",\"description\n";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-ndjson"));
+
+        ResponseEntity<ItemBulkService.RowResult[]> response = restTemplate.exchange(
+                baseUrl + "/bulk", HttpMethod.POST, new HttpEntity<>(body, headers), ItemBulkService.RowResult[].class);
+
+        // the rows before the broken one are written and reported, the last result marks where reading failed
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        ItemBulkService.RowResult[] results = Objects.requireNonNull(response.getBody());
+        assertThat(results).extracting(ItemBulkService.RowResult::outcome).containsExactly(
+                ItemBulkService.Outcome.CREATED, ItemBulkService.Outcome.CREATED, ItemBulkService.Outcome.MALFORMED);
+        assertThat(results[2].index()).isEqualTo(2);
+        assertThat(itemRepository.count()).isEqualTo(2);
+    }
+
+    // bulkUpdateAndDelete_reportMissingRows() method tests bulk update and bulk delete with a missing id
+    @Test
+    void bulkUpdateAndDelete_reportMissingRows() {
+        Item item = itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        long missingId = item.getId() + 1000;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        List<Item> updates = List.of(
+                new Item(item.getId(), "AfterUpdate", "Description 1", ItemStatus.PROCESSED, "email@email.com"),
+                new Item(missingId, "Missing", "Description 2", ItemStatus.UNPROCESSED, "email@email.com"));
+        ResponseEntity<ItemBulkService.RowResult[]> updated = restTemplate.exchange(
+                baseUrl + "/bulk", HttpMethod.PUT, new HttpEntity<>(updates, headers), ItemBulkService.RowResult[].class);
+
+        assertThat(Objects.requireNonNull(updated.getBody())).extracting(ItemBulkService.RowResult::outcome)
+                .containsExactly(ItemBulkService.Outcome.UPDATED, ItemBulkService.Outcome.NOT_FOUND);
+        assertThat(itemRepository.findById(item.getId())).get().extracting(Item::getName).isEqualTo("AfterUpdate");
+
+        ResponseEntity<ItemBulkService.RowResult[]> deleted = restTemplate.exchange(
+                baseUrl + "/bulk", HttpMethod.DELETE, new HttpEntity<>(List.of(item.getId(), missingId), headers), ItemBulkService.RowResult[].class);
+
+        assertThat(Objects.requireNonNull(deleted.getBody())).extracting(ItemBulkService.RowResult::outcome)
+                .containsExactly(ItemBulkService.Outcome.DELETED, ItemBulkService.Outcome.NOT_FOUND);
+        assertThat(itemRepository.count()).isZero();
+    }
+
     // updateItem_updatesSuccessfully() method tests the update of an item
     @Test
     void updateItem_updatesSuccessfully() {
-        Item item = itemRepository.save(new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com"));
+        Item item = itemRepository.save(new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
         item.setName("AfterUpdate");
 
         // HttpHeaders is used to set the content type of the request
@@ -108,40 +427,118 @@ class InternshipApplicationTests {
         assertThat(Objects.requireNonNull(response.getBody()).getName()).isEqualTo("AfterUpdate");
     }
 
+    // updateItem_withStaleETag_isRejected() method tests that a second writer holding an old ETag cannot overwrite the first
+    @Test
+    void updateItem_withStaleETag_isRejected() {
+        Item item = itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        String url = baseUrl + "/" + item.getId();
+        String etag = restTemplate.getForEntity(url, Item.class).getHeaders().getETag();
+        assertThat(etag).isEqualTo("\"0\"");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setIfMatch(etag);
+
+        // the first writer wins and gets the next version back
+        item.setName("FirstWriter");
+        ResponseEntity<Item> first = restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(item, headers), Item.class);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).isEqualTo("\"1\"");
+
+        // the second writer still holds version 0
+        item.setName("SecondWriter");
+        ResponseEntity<String> second = restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(item, headers), String.class);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(itemRepository.findById(item.getId())).get().extracting(Item::getName).isEqualTo("FirstWriter");
+    }
+
+    // patchItem_changesOnlyGivenFields() method tests a merge patch against the database
+    @Test
+    void patchItem_changesOnlyGivenFields() {
+        Item item = itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+
+        Item patched = itemService.patch(item.getId(), Map.of("email", "other@email.com"), 0L);
+
+        // the untouched fields keep their values and the version moves on
+        assertThat(patched.getEmail()).isEqualTo("other@email.com");
+        assertThat(patched.getVersion()).isEqualTo(1L);
+        Item stored = itemRepository.findById(item.getId()).orElseThrow();
+        assertThat(stored.getName()).isEqualTo("Item 1");
+        assertThat(stored.getEmail()).isEqualTo("other@email.com");
+
+        // invalid values, read-only fields and stale versions are rejected without writing
+        assertThatThrownBy(() -> itemService.patch(item.getId(), Map.of("email", "not-an-email"), null))
+                .isInstanceOf(InvalidItemException.class);
+        assertThatThrownBy(() -> itemService.patch(item.getId(), Map.of("id", "5"), null))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> itemService.patch(item.getId(), Map.of("name", "Renamed"), 0L))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThat(itemRepository.findById(item.getId()).orElseThrow().getVersion()).isEqualTo(1L);
+    }
+
+    // transitionStatus_movesOnlyMatchingRows() method tests the bulk status transition
+    @Test
+    void transitionStatus_movesOnlyMatchingRows() {
+        Item first = itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        Item second = itemRepository.save(new Item(null, "Item 2", "Description 2", ItemStatus.PROCESSED, "email@email.com"));
+
+        ItemBulkService.TransitionResult result = itemBulkService.transitionStatus(new ItemBulkService.StatusTransition(
+                List.of(first.getId(), second.getId(), 999_999L), ItemStatus.UNPROCESSED, ItemStatus.PROCESSED));
+
+        assertThat(result.requested()).isEqualTo(3);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(itemRepository.findAll()).allMatch(i -> i.getStatus() == ItemStatus.PROCESSED);
+    }
+
     // deleteItem_returnsNoContent() method tests the deletion of an item
     @Test
     void deleteItem_returnsNoContent() {
-        Item item = itemRepository.save(new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com"));
+        Item item = itemRepository.save(new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
         restTemplate.delete(baseUrl + "/" + item.getId());
 
         // verifies that the item is deleted from the database
         assertThat(itemRepository.findById(item.getId())).isEmpty();
     }
 
-    // processItemsAsync_shouldUpdateStatus() method tests the asynchronous processing of items
+    // processItems_shouldUpdateStatus() method tests that a processing job is accepted and processes every item
     @Test
-    void processItemsAsync_shouldUpdateStatus() throws InterruptedException {
-        Item item1 = itemRepository.save(new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com"));
-        Item item2 = itemRepository.save(new Item(2L, "Item 2", "Description 2", "UNPROCESSED", "email@email.com"));
-
-
-        // getForEntity() method is used to send a GET request to process items
-        ResponseEntity<Item[]> response = restTemplate.getForEntity(baseUrl + "/process", Item[].class);
-
-        // simulate processing time
-        Thread.sleep(500);
-
-        // Verifies that the response status is 200 OK and the response body contains the processed items
+    void processItems_shouldUpdateStatus() throws InterruptedException {
+        itemRepository.save(new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        itemRepository.save(new Item(2L, "Item 2", "Description 2", ItemStatus.UNPROCESSED, "email@email.com"));
+
+        // postForEntity() method is used to start a processing job, which returns 202 Accepted right away
+        ResponseEntity<ProcessingJob.Snapshot> response = restTemplate.postForEntity(baseUrl + "/process", null, ProcessingJob.Snapshot.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getHeaders().getLocation()).isNotNull();
+        String jobId = Objects.requireNonNull(response.getBody()).id();
+
+        // poll the job until it is no longer running
+        ProcessingJob.Snapshot job = response.getBody();
+        for (int i = 0; i < 50 && job.state() == ProcessingJob.State.RUNNING; i++) {
+            Thread.sleep(100);
+            job = restTemplate.getForObject(baseUrl + "/process/" + jobId, ProcessingJob.Snapshot.class);
+        }
+
+        // Verifies that the job completed and every item is processed
+        assertThat(job.state()).isEqualTo(ProcessingJob.State.COMPLETED);
+        assertThat(job.total()).isEqualTo(2);
+        assertThat(job.processed()).isEqualTo(2);
         List<Item> updatedItems = itemRepository.findAll();
-        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(updatedItems).hasSize(2);
-        assertThat(updatedItems).allMatch(i -> "PROCESSED".equals(i.getStatus()));
+        assertThat(updatedItems).allMatch(i -> i.getStatus() == ItemStatus.PROCESSED);
+    }
+
+    @Test
+    void getProcessingJob_shouldReturnNotFound_whenJobDoesNotExist() {
+        ResponseEntity<String> response = restTemplate.getForEntity(baseUrl + "/process/unknown", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
     }
 
     // createItem_shouldReturnBadRequest_whenValidationFails() method tests the creation of an item with invalid data
     @Test
     void createItem_shouldReturnBadRequest_whenValidationFails() {
-        Item invalidItem = new Item(1L, "", "Description 1", "UNPROCESSED", "email@email.com");
+        Item invalidItem = new Item(1L, "", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
 
         ResponseEntity<String> response = restTemplate.postForEntity(baseUrl, invalidItem, String.class);
 
@@ -163,7 +560,7 @@ class InternshipApplicationTests {
     // updateItem_shouldReturnNotFound_whenItemDoesNotExist() method tests the update of an item when it does not exist
     @Test
     void updateItem_shouldReturnNotFound_whenItemDoesNotExist() {
-        Item item = new Item(1L, "", "Description 1", "UNPROCESSED", "email@email.com");
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -0,0 +1,73 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemBatchProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the processing executor rejects every chunk, so the overload policy alone decides what happens
+@SpringBootTest(properties = {"items.processing.chunk-size=3", "items.processing.parallelism=2"})
+public class ItemBatchProcessorOverloadTest {
+    @MockBean(name = "processingExecutor")
+    private Executor processingExecutor;
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    @BeforeEach
+    void setup() {
+        itemRepository.deleteAll();
+        for (int i = 0; i < 10; i++) {
+            itemRepository.save(new Item(null, "Item " + i, "Description " + i, ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+        Mockito.doThrow(new RejectedExecutionException("saturated")).when(processingExecutor).execute(Mockito.any());
+    }
+
+    @AfterEach
+    void restorePolicy() {
+        properties.setOverloadPolicy(ProcessingProperties.OverloadPolicy.WAIT);
+    }
+
+    @Test
+    void shed_dropsRejectedChunksAndLeavesThemUnprocessed() throws InterruptedException {
+        properties.setOverloadPolicy(ProcessingProperties.OverloadPolicy.SHED);
+
+        ItemBatchProcessor.BatchResult result = batchProcessor.processAll(new ItemBatchProcessor.ChunkListener() {
+        });
+
+        assertThat(result.shed()).isEqualTo(10);
+        assertThat(result.processed()).isZero();
+        assertThat(itemRepository.countByStatus(ItemStatus.UNPROCESSED)).isEqualTo(10);
+    }
+
+    @Test
+    void callerRuns_writesRejectedChunksOnTheReaderThread() throws InterruptedException {
+        properties.setOverloadPolicy(ProcessingProperties.OverloadPolicy.CALLER_RUNS);
+
+        ItemBatchProcessor.BatchResult result = batchProcessor.processAll(new ItemBatchProcessor.ChunkListener() {
+        });
+
+        assertThat(result.processed()).isEqualTo(10);
+        assertThat(result.shed()).isZero();
+        assertThat(itemRepository.countByStatus(ItemStatus.PROCESSED)).isEqualTo(10);
+    }
+}
@@ -0,0 +1,81 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ItemBatchProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// small chunks so that a handful of rows already spans several chunks and workers
+@SpringBootTest(properties = {"items.processing.chunk-size=3", "items.processing.parallelism=2"})
+public class ItemBatchProcessorTest {
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @BeforeEach
+    void setup() {
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void processAll_processesEveryUnprocessedItemInChunks() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            itemRepository.save(new Item(null, "Item " + i, "Description " + i, ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+        itemRepository.save(new Item(null, "Done", "Already processed", ItemStatus.PROCESSED, "email@email.com"));
+
+        ConcurrentLinkedQueue<Long> committed = new ConcurrentLinkedQueue<>();
+        ItemBatchProcessor.BatchResult result = batchProcessor.processAll(new ItemBatchProcessor.ChunkListener() {
+            @Override
+            public void onChunkCommitted(List<Long> ids, int updated) {
+                committed.addAll(ids);
+            }
+        });
+
+        // 10 unprocessed rows with a chunk size of 3 -> 4 chunks, the processed row is never selected
+        assertThat(result.processed()).isEqualTo(10);
+        assertThat(result.failed()).isZero();
+        assertThat(result.chunks()).isEqualTo(4);
+        assertThat(committed).hasSize(10).doesNotHaveDuplicates();
+
+        List<Item> items = itemRepository.findAll();
+        assertThat(items).allMatch(i -> ItemStatus.PROCESSED.equals(i.getStatus()));
+    }
+
+    @Test
+    void processAll_stopsWhenCancelled() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            itemRepository.save(new Item(null, "Item " + i, "Description " + i, ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+
+        ItemBatchProcessor.BatchResult result = batchProcessor.processAll(new ItemBatchProcessor.ChunkListener() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        });
+
+        assertThat(result.chunks()).isZero();
+        assertThat(itemRepository.countByStatus(ItemStatus.UNPROCESSED)).isEqualTo(10);
+    }
+
+    @Test
+    void processAll_onEmptyTable_doesNothing() throws InterruptedException {
+        ItemBatchProcessor.BatchResult result = batchProcessor.processAll(new ItemBatchProcessor.ChunkListener() {
+        });
+
+        assertThat(result.processed()).isZero();
+        assertThat(result.chunks()).isZero();
+    }
+}
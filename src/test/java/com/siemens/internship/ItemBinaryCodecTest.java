@@ -0,0 +1,84 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ItemBinaryHttpMessageConverter;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemBinaryCodec;
+import com.siemens.internship.model.ItemStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemBinaryCodecTest {
+    private static byte[] encode(Item item, int bufferSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ItemBinaryCodec.Writer writer = new ItemBinaryCodec.Writer(out, bufferSize);
+        writer.write(item);
+        writer.flush();
+        return out.toByteArray();
+    }
+
+    private static Item decode(byte[] bytes) throws IOException {
+        InputStream in = new ByteArrayInputStream(bytes);
+        ItemBinaryCodec.readHeader(in);
+        Item item = ItemBinaryCodec.read(in);
+        assertThat(ItemBinaryCodec.read(in)).isNull();
+        return item;
+    }
+
+    @Test
+    void nonAsciiText_roundTripsAndIsEncodedAsStandardUtf8() throws IOException {
+        // two-byte Latin, three-byte CJK and four-byte surrogate pairs, next to each other
+        String name = "Café Ünïcödé 日本語 😀𝄞";
+        Item item = new Item(7L, name, "Grüße 👋", ItemStatus.PROCESSED, "mäx@exämple.com", 3L);
+
+        byte[] bytes = encode(item, 8192);
+
+        assertThat(decode(bytes)).isEqualTo(item);
+        // the name is written as String.getBytes writes it, behind its id, version, status and length
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        assertThat(Arrays.copyOfRange(bytes, 5, 5 + utf8.length)).isEqualTo(utf8);
+    }
+
+    @Test
+    void longText_splitAcrossBufferRefills_roundTrips() throws IOException {
+        // a string many times the buffer, with multi-byte characters at every possible refill offset
+        String name = "a€😀ß".repeat(200);
+        Item item = new Item(1L, name, null, null, null, 0L);
+
+        assertThat(decode(encode(item, 64))).isEqualTo(item);
+    }
+
+    // the validation of Item admits ASCII names only, so non-ASCII bodies are taken through the converter itself
+    @Test
+    void converter_readsAndWritesNonAsciiBodies() throws IOException {
+        ItemBinaryHttpMessageConverter converter = new ItemBinaryHttpMessageConverter();
+        List<Item> items = List.of(new Item(1L, "Café 😀", "日本語", ItemStatus.UNPROCESSED, "email@email.com", 0L),
+                new Item(2L, "𝄞 Grüße", null, ItemStatus.PROCESSED, null, 1L));
+
+        MockHttpOutputMessage written = new MockHttpOutputMessage();
+        converter.write(items, List.class, ItemBinaryHttpMessageConverter.MEDIA_TYPE, written);
+        Object read = converter.read(new ParameterizedTypeReference<List<Item>>() {
+        }.getType(), null, new MockHttpInputMessage(written.getBodyAsBytes()));
+
+        assertThat(read).isEqualTo(items);
+    }
+
+    @Test
+    void unpairedSurrogate_isReplacedLikeStringGetBytes() throws IOException {
+        String name = "lone \uD83D high, lone \uDE00 low";
+        Item item = new Item(1L, name, null, null, null, 0L);
+
+        assertThat(decode(encode(item, 8192)).getName()).isEqualTo(new String(name.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+    }
+}
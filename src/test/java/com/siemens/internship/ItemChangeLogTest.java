@@ -0,0 +1,128 @@
+package com.siemens.internship;
+
+import com.siemens.internship.exception.PreconditionFailedException;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemChangeRepository;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ItemStore;
+import com.siemens.internship.service.ItemBatchProcessor;
+import com.siemens.internship.service.ItemChangeLog;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// same settings as ItemBatchProcessorTest, so the context is shared
+@SpringBootTest(properties = {"items.processing.chunk-size=3", "items.processing.parallelism=2"})
+public class ItemChangeLogTest {
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ItemChangeLog changeLog;
+
+    @Autowired
+    private ItemStore itemStore;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemChangeRepository changeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanup() {
+        itemRepository.deleteAll();
+        changeRepository.deleteAll();
+    }
+
+    @Test
+    void everyWrite_isRecordedInTheFeed() throws InterruptedException {
+        Item created = itemService.save(new Item(null, "Item 1", "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        Item other = itemService.save(new Item(null, "Item 2", "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        itemService.patch(created.getId(), Map.of("name", "Item 1b"), null);
+        itemService.deleteById(other.getId());
+        batchProcessor.processAll(new ItemBatchProcessor.ChunkListener() {
+        });
+
+        List<ItemChange> changes = changeLog.changesSince(0L, 100);
+        assertThat(changes).extracting(ItemChange::getType).containsExactly(ItemChange.Type.CREATED, ItemChange.Type.CREATED,
+                ItemChange.Type.UPDATED, ItemChange.Type.DELETED, ItemChange.Type.PROCESSED);
+        assertThat(changes).extracting(ItemChange::getItemId)
+                .containsExactly(created.getId(), other.getId(), created.getId(), other.getId(), created.getId());
+        assertThat(changes.get(4).getStatus()).isEqualTo(ItemStatus.PROCESSED);
+
+        // resuming from the cursor of the second change yields the rest only
+        assertThat(changeLog.changesSince(changes.get(1).getSeq(), 2)).containsExactlyElementsOf(changes.subList(2, 4));
+    }
+
+    @Test
+    void failedWrite_recordsNothingAndAFailedRecordUndoesTheWrite() {
+        Item created = itemService.save(new Item(null, "Item 1", "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        assertThatThrownBy(() -> itemService.update(created.getId(), created, 7L)).isInstanceOf(PreconditionFailedException.class);
+        assertThat(changeRepository.count()).isEqualTo(1);
+
+        // the store write and its change commit together: an outbox insert that fails rolls the write back
+        Item changes = created.copy();
+        changes.setName("Renamed");
+        assertThatThrownBy(() -> changeLog.write(() -> itemStore.replace(created.getId(), changes, null),
+                item -> List.of(new ItemChange(null, created.getId(), null, null, null))))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(itemRepository.findById(created.getId()).orElseThrow().getName()).isEqualTo("Item 1");
+        assertThat(changeRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void aLaterWrite_neverBecomesVisibleBeforeAnEarlierOneCommits() throws Exception {
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        // the first writer takes its seq and stalls before committing
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            changeLog.record(List.of(ItemChange.of(1L, ItemChange.Type.CREATED, ItemStatus.UNPROCESSED)));
+            recorded.countDown();
+            await(commit);
+        }));
+        assertThat(recorded.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status ->
+                changeLog.record(List.of(ItemChange.of(2L, ItemChange.Type.CREATED, ItemStatus.UNPROCESSED)))));
+
+        // the second writer waits for the sequence row, so a reader cannot see it and skip the first
+        Thread.sleep(200);
+        assertThat(second).isNotDone();
+        assertThat(changeLog.changesSince(0L, 100)).isEmpty();
+
+        commit.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertThat(changeLog.changesSince(0L, 100)).extracting(ItemChange::getItemId).containsExactly(1L, 2L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,23 +2,37 @@ package com.siemens.internship;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.siemens.internship.controller.ItemController;
+import com.siemens.internship.exception.PreconditionFailedException;
+import com.siemens.internship.exception.ServiceUnavailableException;
+import com.siemens.internship.exception.TooManyRequestsException;
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemChange;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemQuery;
+import com.siemens.internship.service.ItemBulkService;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.ItemValidator;
+import com.siemens.internship.service.ProcessingJob;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ItemController.class)
+@Import(ItemValidator.class)
 public class ItemControllerTest {
 
     // MockMvc is used to perform HTTP requests in tests
@@ -29,6 +43,9 @@ public class ItemControllerTest {
     @MockBean
     private ItemService itemService;
 
+    @MockBean
+    private ItemBulkService itemBulkService;
+
     // ObjectMapper is used to convert Java objects to JSON and vice versa
     @Autowired
     private ObjectMapper objectMapper;
@@ -36,16 +53,63 @@ public class ItemControllerTest {
     @Test
     void getAllItems_returnsOk() throws Exception {
         // Mocking the ItemService to return a list of items
-        Mockito.when(itemService.findAll()).thenReturn(List.of(new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com")));
+        Mockito.when(itemService.findPage(0L, 100)).thenReturn(List.of(new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com")));
 
         // Performing a GET request to the /api/items endpoint and expecting a 200 OK response
         mockMvc.perform(get("/api/items"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    void getAllItems_fullPage_returnsNextLink() throws Exception {
+        // Mocking a full page of two items after the cursor 5
+        Mockito.when(itemService.findPage(5L, 2)).thenReturn(List.of(
+                new Item(6L, "Item 6", "Description 6", ItemStatus.UNPROCESSED, "email@email.com"),
+                new Item(7L, "Item 7", "Description 7", ItemStatus.UNPROCESSED, "email@email.com")));
+
+        // the Link header points to the page after the last returned id
+        mockMvc.perform(get("/api/items").param("limit", "2").param("after", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", "</api/items?limit=2&after=7>; rel=\"next\""));
+    }
+
+    @Test
+    void searchItems_fullPageByName_returnsEncodedNextLink() throws Exception {
+        Mockito.when(itemService.search(new ItemQuery(ItemStatus.PROCESSED, null, "example.com", "It", ItemQuery.Order.NAME, null, 0L, 1)))
+                .thenReturn(List.of(new Item(6L, "Item 6", "Description 6", ItemStatus.PROCESSED, "email@example.com")));
+
+        // the domain is matched case-insensitively, the cursor is the (name, id) of the last item
+        mockMvc.perform(get("/api/items/search").param("status", "PROCESSED").param("emailDomain", "Example.COM")
+                        .param("namePrefix", "It").param("sort", "name").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", "</api/items/search?status=PROCESSED&emailDomain=example.com&namePrefix=It"
+                        + "&sort=name&limit=1&after=6&afterName=Item%206>; rel=\"next\""));
+
+        mockMvc.perform(get("/api/items/search").param("sort", "email"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getChanges_alwaysLinksTheNextCursor() throws Exception {
+        Mockito.when(itemService.changesSince(10L, 100)).thenReturn(List.of(
+                new ItemChange(11L, 6L, ItemChange.Type.CREATED, ItemStatus.UNPROCESSED, Instant.now()),
+                new ItemChange(12L, 6L, ItemChange.Type.DELETED, null, Instant.now())));
+
+        mockMvc.perform(get("/api/items/changes").param("since", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].type").value("DELETED"))
+                .andExpect(header().string("Link", "</api/items/changes?limit=100&since=12>; rel=\"next\""));
+
+        // nothing new: poll again from the same cursor
+        mockMvc.perform(get("/api/items/changes").param("since", "12"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link", "</api/items/changes?limit=100&since=12>; rel=\"next\""));
     }
 
     @Test
     void createItem_valid_returnsCreated() throws Exception {
-        Item item = new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com");
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
         // Mocking the ItemService to return the created item
         Mockito.when(itemService.save(Mockito.any())).thenReturn(item);
 
@@ -56,9 +120,32 @@ public class ItemControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    void createItem_unknownStatus_returnsBadRequest() throws Exception {
+        // status is an enum now, unknown names are rejected while reading the body
+        mockMvc.perform(post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Item 1\",\"description\":\"Description 1\",\"status\":\"DONE\",\"email\":\"email@email.com\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("status must be one of [UNPROCESSED, PROCESSED]"));
+    }
+
+    @Test
+    void createItem_invalidFields_returnsFieldMessages() throws Exception {
+        // the fast-path validator reports the messages declared on the Item annotations
+        mockMvc.perform(post("/api/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"It\",\"description\":\"Description 1\",\"status\":\"UNPROCESSED\",\"email\":\"not-an-email\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[?(@ == 'email Invalid email format')]").exists())
+                .andExpect(jsonPath("$[?(@ =~ /name Name must be 3-50 characters.*/)]").exists());
+        Mockito.verifyNoInteractions(itemService);
+    }
+
     @Test
     void getItemById_found_returnsItem() throws Exception {
-        Item item = new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com");
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
         // Mocking the ItemService to return the item when searched by ID
         Mockito.when(itemService.findById(1L)).thenReturn(Optional.of(item));
 
@@ -69,18 +156,82 @@ public class ItemControllerTest {
 
     @Test
     void updateItem_found_returnsUpdatedItem() throws Exception {
-        Item item = new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com");
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
 
-        // Mocking the ItemService to return the item when searched by ID
-        Mockito.when(itemService.findById(1L)).thenReturn(Optional.of(item));
-        // Mocking the ItemService to return the updated item
-        Mockito.when(itemService.save(Mockito.any())).thenReturn(item);
+        item.setVersion(4L);
+        // Mocking the ItemService to return the updated item for an update expecting version 3
+        Mockito.when(itemService.update(Mockito.eq(1L), Mockito.any(), Mockito.eq(3L))).thenReturn(item);
 
-        // Performing a PUT request to the /api/items/{id} endpoint with the item data, and expecting a 200 OK response
+        // Performing a PUT request to the /api/items/{id} endpoint with the item data, and expecting a 200 OK response with the new ETag
         mockMvc.perform(put("/api/items/1")
+                        .header("If-Match", "\"3\"")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(item)))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
+    @Test
+    void updateItem_staleVersion_returnsPreconditionFailed() throws Exception {
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+
+        // Mocking the ItemService to report a concurrent modification
+        Mockito.when(itemService.update(Mockito.eq(1L), Mockito.any(), Mockito.eq(2L)))
+                .thenThrow(new PreconditionFailedException("Item 1 was modified concurrently, expected version 2"));
+
+        mockMvc.perform(put("/api/items/1")
+                        .header("If-Match", "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(item)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void updateItem_invalidFields_returnsBadRequest() throws Exception {
+        // PUT bodies are validated like POST bodies, the conditional UPDATE of the store never sees them
+        mockMvc.perform(put("/api/items/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"\",\"description\":\"Description 1\",\"status\":\"UNPROCESSED\",\"email\":\"not-an-email\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[?(@ == 'email Invalid email format')]").exists());
+        Mockito.verifyNoInteractions(itemService);
+    }
+
+    @Test
+    void getItemById_matchingETag_returnsNotModified() throws Exception {
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+        item.setVersion(7L);
+        Mockito.when(itemService.findById(1L)).thenReturn(Optional.of(item));
+
+        mockMvc.perform(get("/api/items/1").header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"7\""));
+    }
+
+    @Test
+    void patchItem_mergePatch_returnsPatchedItemAndETag() throws Exception {
+        Item patched = new Item(1L, "Item 1", "Description 1", ItemStatus.PROCESSED, "email@email.com");
+        patched.setVersion(2L);
+        Mockito.when(itemService.patch(1L, Map.of("status", "PROCESSED"), null)).thenReturn(patched);
+
+        // Performing a PATCH request with only the changed field
+        mockMvc.perform(patch("/api/items/1")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"status\":\"PROCESSED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.status").value("PROCESSED"));
+    }
+
+    @Test
+    void transitionStatus_returnsCounts() throws Exception {
+        Mockito.when(itemBulkService.transitionStatus(Mockito.any())).thenReturn(new ItemBulkService.TransitionResult(3, 2));
+
+        mockMvc.perform(patch("/api/items/bulk/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2,3],\"from\":\"UNPROCESSED\",\"to\":\"PROCESSED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
     }
 
     @Test
@@ -90,4 +241,62 @@ public class ItemControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void processItems_returnsAcceptedWithJobLocation() throws Exception {
+        ProcessingJob job = new ProcessingJob("job-1");
+        // Mocking the ItemService to return a freshly started job
+        Mockito.when(itemService.startProcessingJob(null)).thenReturn(job);
+
+        // Performing a POST request to the /api/items/process endpoint, and expecting a 202 Accepted response
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/items/process/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+    }
+
+    @Test
+    void processItems_tooManyJobs_returnsTooManyRequestsWithRetryAfter() throws Exception {
+        // Mocking the ItemService to refuse the job because too many are already running
+        Mockito.when(itemService.startProcessingJob(null)).thenThrow(new TooManyRequestsException("busy", 7));
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "7"));
+    }
+
+    @Test
+    void processItems_saturated_returnsServiceUnavailableWithRetryAfter() throws Exception {
+        Mockito.when(itemService.startProcessingJob(null)).thenThrow(new ServiceUnavailableException("saturated", 3));
+
+        mockMvc.perform(post("/api/items/process"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+
+    @Test
+    void cancelProcessingJob_unknown_returnsNotFound() throws Exception {
+        Mockito.when(itemService.cancelJob("missing")).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/items/process/missing/cancel"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createItems_malformedBody_returnsBadRequest() throws Exception {
+        // the service consumes the lazily parsed rows, so force iteration like the real implementation does
+        Mockito.when(itemBulkService.createAll(Mockito.any())).thenAnswer(invocation -> {
+            Iterator<?> rows = invocation.getArgument(0);
+            while (rows.hasNext()) {
+                rows.next();
+            }
+            return List.of();
+        });
+
+        mockMvc.perform(post("/api/items/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\": \"Item 1\"}, {not json"))
+                .andExpect(status().isBadRequest());
+    }
+
 }
@@ -1,10 +1,14 @@
 package com.siemens.internship;
 
 import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
 import com.siemens.internship.repository.ItemRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,7 +20,7 @@ public class ItemRepositoryTest {
 
     @Test
     void CRUD_worksCorrectly() {
-        Item item = new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com");
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
         Item saved = itemRepository.save(item);
 
         assertNotNull(saved.getId());
@@ -33,4 +37,18 @@ public class ItemRepositoryTest {
         Item deleted = itemRepository.findById(saved.getId()).orElse(null);
         assertNull(deleted);
     }
+
+    @Test
+    void statusQueries_onlyTouchUnprocessedRows() {
+        Item pending = itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        Item done = itemRepository.save(new Item(null, "Item 2", "Description 2", ItemStatus.PROCESSED, "email@email.com"));
+
+        // keyset selection returns only UNPROCESSED ids
+        assertEquals(List.of(pending.getId()), itemRepository.findIdsByStatusAfter(ItemStatus.UNPROCESSED, 0L, PageRequest.of(0, 10)));
+
+        // the bulk transition skips rows that are already PROCESSED (no-op writes)
+        int updated = itemRepository.updateStatus(List.of(pending.getId(), done.getId()), ItemStatus.UNPROCESSED, ItemStatus.PROCESSED);
+        assertEquals(1, updated);
+        assertEquals(0, itemRepository.countByStatus(ItemStatus.UNPROCESSED));
+    }
 }
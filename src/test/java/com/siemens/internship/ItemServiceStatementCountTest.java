@@ -0,0 +1,260 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemField;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemChangeRepository;
+import com.siemens.internship.repository.ItemQuery;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingCheckpointRepository;
+import com.siemens.internship.repository.ProcessingLeaseRepository;
+import com.siemens.internship.service.ItemCache;
+import com.siemens.internship.service.ItemService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// pins the SQL statements each ItemService operation sends to the database, under the perf profile, so an
+// N+1 query or a lost JDBC batch fails the build. Statements are counted where they leave JDBC: a batch is
+// one statement, as it is one round trip. Sequence calls are left out, the pooled generator makes one per
+// 50 inserts, whichever operation happens to run out
+@SpringBootTest(properties = {"items.processing.chunk-size=3", "items.processing.parallelism=2"})
+@ActiveProfiles("perf")
+@Import(ItemServiceStatementCountTest.CountingDataSource.class)
+public class ItemServiceStatementCountTest {
+    private static final List<String> statements = new ArrayList<>();
+    private static volatile boolean recording;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemChangeRepository changeRepository;
+
+    @Autowired
+    private ProcessingLeaseRepository leaseRepository;
+
+    @Autowired
+    private ProcessingCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ItemCache itemCache;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${items.executor.max-concurrency}")
+    private int maxConcurrency;
+
+    @Value("${items.processing.max-concurrent-jobs}")
+    private int maxConcurrentJobs;
+
+    @Value("${items.datasource.pool.request-connections}")
+    private int requestConnections;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        for (int i = 0; i < 6; i++) {
+            Item item = itemRepository.save(new Item(null, "Item " + i, "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+            itemCache.invalidate(item.getId());
+            ids.add(item.getId());
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        recording = false;
+        itemRepository.deleteAll();
+        changeRepository.deleteAll();
+        // a run claims and resumes differently when leases or checkpoints of earlier runs exist
+        leaseRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        ids.clear();
+    }
+
+    @Test
+    void reads_takeOneStatementEach() {
+        Set<ItemField> fields = EnumSet.of(ItemField.ID, ItemField.STATUS);
+        ItemQuery query = new ItemQuery(ItemStatus.UNPROCESSED, null, null, null, ItemQuery.Order.ID, null, 0L, 10);
+
+        assertStatements(1, () -> itemService.findAll());
+        assertStatements(1, () -> itemService.findPage(0L, 10));
+        assertStatements(1, () -> itemService.findPage(0L, 10, fields));
+        assertStatements(1, () -> itemService.streamAll(0L, item -> { }));
+        assertStatements(1, () -> itemService.search(query));
+        assertStatements(1, () -> itemService.search(query, fields));
+        assertStatements(1, () -> itemService.suggestNames("Item", 5));
+        assertStatements(1, () -> itemService.findById(ids.get(0), fields));
+        assertStatements(1, () -> itemService.findById(ids.get(0)));
+        // cached now
+        assertStatements(0, () -> itemService.findById(ids.get(0)));
+        assertStatements(0, () -> itemService.findById(ids.get(0), fields));
+        assertStatements(1, () -> itemService.changesSince(0L, 10));
+    }
+
+    @Test
+    void writes_takeTheWriteAndTheChangeRecord() {
+        // INSERT item, the item_change seqs, INSERT item_change
+        assertStatements(3, () -> itemService.save(new Item(null, "New", "Description", ItemStatus.UNPROCESSED, "email@email.com")));
+        // conditional UPDATE, the item_change seqs, INSERT item_change
+        assertStatements(3, () -> itemService.update(ids.get(0), new Item(null, "Renamed", "Description", ItemStatus.UNPROCESSED, "email@email.com"), 0L));
+        // UPDATE, SELECT version, the item_change seqs, INSERT item_change
+        assertStatements(4, () -> itemService.update(ids.get(1), new Item(null, "Renamed", "Description", ItemStatus.UNPROCESSED, "email@email.com"), null));
+        // SELECT, UPDATE of the changed column, the item_change seqs, INSERT item_change
+        assertStatements(4, () -> itemService.patch(ids.get(2), Map.of("name", "Patched"), null));
+        // DELETE, the item_change seqs, INSERT item_change
+        assertStatements(3, () -> itemService.deleteById(ids.get(3)));
+    }
+
+    @Test
+    void processing_takesAFixedNumberOfStatementsPerChunk() {
+        for (int i = 0; i < 6; i++) {
+            itemRepository.save(new Item(null, "More " + i, "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+        recording = true;
+        assertThat(itemService.processItemsAsync().join()).hasSize(12);
+        recording = false;
+
+        // per run: the UPDATE interrupting runs of silent nodes, checkpoint lookup and INSERT, the database time
+        // the run starts at, the lease claim and release and the closing checkpoint UPDATEs; no range was skipped,
+        // so nothing is waited for. Per chunk of 3: its id page, SELECT ... FOR UPDATE, UPDATE, the item_change
+        // seqs and batch, the checkpoint UPDATE and the re-read of the processed items that processItemsAsync returns
+        List<String> recorded = recorded();
+        assertThat(recorded).as(String.join("\n", recorded)).hasSize(13 + 7 * 4);
+    }
+
+    @Test
+    void perfProfile_poolServesTheConfiguredParallelismAndExportsPoolAndHibernateMeters() throws Exception {
+        // every chunk worker, job and API request holds a connection at the same time; a pool too small for
+        // them makes a caller time out after connection-timeout instead of getting one
+        int parallelism = maxConcurrency + maxConcurrentJobs + requestConnections;
+        ExecutorService callers = Executors.newFixedThreadPool(parallelism);
+        CountDownLatch holding = new CountDownLatch(parallelism);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < parallelism; i++) {
+                calls.add(callers.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        holding.countDown();
+                        release.await();
+                    }
+                    return null;
+                }));
+            }
+            boolean allHeld = holding.await(10, TimeUnit.SECONDS);
+            release.countDown();
+            for (Future<?> call : calls) {
+                call.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(allHeld).isTrue();
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+
+        assertThat(meterRegistry.find("hikaricp.connections.pending").gauge()).isNotNull();
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+        assertThat(meterRegistry.find("hibernate.statements").tag("status", "prepared").functionCounter()).isNotNull();
+    }
+
+    private void assertStatements(int expected, Runnable operation) {
+        recording = true;
+        try {
+            operation.run();
+        } finally {
+            recording = false;
+        }
+        List<String> recorded = recorded();
+        assertThat(recorded).as(String.join("\n", recorded)).hasSize(expected);
+    }
+
+    private static List<String> recorded() {
+        synchronized (statements) {
+            List<String> recorded = statements.stream()
+                    .filter(sql -> !sql.toLowerCase().contains("next value for"))
+                    .toList();
+            statements.clear();
+            return recorded;
+        }
+    }
+
+    // wraps the pool so that every executed statement is recorded while recording is on
+    @TestConfiguration
+    static class CountingDataSource {
+        @Bean
+        static BeanPostProcessor countingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource, null) : bean;
+                }
+            };
+        }
+
+        // connections and statements come back wrapped as well; the SQL of a prepared statement is kept to
+        // record it when it is executed
+        private static <T> T proxy(Class<T> type, Object target, String sql) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                Object result = invoke(method, target, args);
+                Class<?> returned = method.getReturnType();
+                if (result != null && (returned == Connection.class || Statement.class.isAssignableFrom(returned))) {
+                    return proxy(returned, result, args != null && args.length > 0 && args[0] instanceof String s ? s : null);
+                }
+                if (recording && target instanceof Statement && method.getName().startsWith("execute")) {
+                    synchronized (statements) {
+                        statements.add(sql != null ? sql : args != null ? String.valueOf(args[0]) : "batch");
+                    }
+                }
+                return result;
+            };
+            return type.cast(Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,14 +1,26 @@
 package com.siemens.internship;
 
+import com.siemens.internship.config.CacheProperties;
+import com.siemens.internship.config.SearchProperties;
+import com.siemens.internship.metrics.ItemMetrics;
 import com.siemens.internship.model.Item;
-import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemStore;
+import com.siemens.internship.service.ItemCache;
+import com.siemens.internship.service.ItemChangeLog;
 import com.siemens.internship.service.ItemService;
+import com.siemens.internship.service.NamePrefixIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -17,20 +29,36 @@ import static org.mockito.Mockito.*;
 
 public class ItemServiceTest {
     @Mock
-    private ItemRepository itemRepository;
+    private ItemStore itemStore;
+
+    // a real cache, so the tests see read-through and invalidation behavior
+    @Spy
+    private ItemCache itemCache = new ItemCache(new CacheProperties());
+
+    @Spy
+    private ItemMetrics metrics = new ItemMetrics(new SimpleMeterRegistry());
+
+    // disabled, so suggestions fall back to the store
+    @Spy
+    private NamePrefixIndex namePrefixIndex = new NamePrefixIndex(new SearchProperties());
+
+    // runs the writes, records nothing
+    @Spy
+    private ItemChangeLog changeLog = new ItemChangeLog();
 
     @InjectMocks
     private ItemService itemService;
 
     public ItemServiceTest() {
         MockitoAnnotations.openMocks(this);
+        doNothing().when(changeLog).record(any());
     }
 
     @Test
     void findById_returnsItem() {
-        Item item = new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com");
-        // Mocking the repository to return the item when searched by ID
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+        // Mocking the store to return the item when searched by ID
+        when(itemStore.findById(1L)).thenReturn(Optional.of(item));
 
         // Calling the service method to find the item by ID, and checking if it returns the expected item
         Optional<Item> result = itemService.findById(1L);
@@ -40,9 +68,9 @@ public class ItemServiceTest {
 
     @Test
     void save_savesItem() {
-        Item item = new Item(1L, "Item 1", "Description 1", "UNPROCESSED", "email@email.com");
-        // Mocking the repository to return the item when saved
-        when(itemRepository.save(item)).thenReturn(item);
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+        // Mocking the store to return the item when saved
+        when(itemStore.save(item)).thenReturn(item);
 
         // Calling the service method to save the item, and checking if it returns the expected item
         Item saved = itemService.save(item);
@@ -50,8 +78,83 @@ public class ItemServiceTest {
     }
 
     @Test
-    void deleteById_callsRepository() {
+    void deleteById_callsStore() {
         itemService.deleteById(1L);
-        verify(itemRepository, times(1)).deleteById(1L);
+        verify(itemStore, times(1)).deleteById(1L);
+    }
+
+    @Test
+    void findById_servesRepeatedReadsFromCache() {
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+        when(itemStore.findById(1L)).thenReturn(Optional.of(item));
+
+        itemService.findById(1L);
+        itemService.findById(1L);
+
+        // only the first read reaches the store
+        verify(itemStore, times(1)).findById(1L);
+        assertEquals(1, itemService.cacheStats().hits());
+        assertEquals(1, itemService.cacheStats().misses());
+    }
+
+    @Test
+    void findById_returnsSnapshotsThatDoNotShareStateWithTheCache() {
+        when(itemStore.findById(1L)).thenReturn(Optional.of(new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com")));
+
+        // mutating a returned item must not leak into later reads
+        itemService.findById(1L).orElseThrow().setStatus(ItemStatus.PROCESSED);
+        assertEquals(ItemStatus.UNPROCESSED, itemService.findById(1L).orElseThrow().getStatus());
+    }
+
+    @Test
+    void saveAndDelete_keepCacheInSync() {
+        Item item = new Item(1L, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+        when(itemStore.save(item)).thenReturn(item);
+
+        // save writes through, so the next read is a hit
+        itemService.save(item);
+        assertEquals("Item 1", itemService.findById(1L).orElseThrow().getName());
+        verify(itemStore, never()).findById(1L);
+
+        // delete invalidates, so the next read goes to the store again
+        itemService.deleteById(1L);
+        when(itemStore.findById(1L)).thenReturn(Optional.empty());
+        assertTrue(itemService.findById(1L).isEmpty());
+        verify(itemStore, times(1)).findById(1L);
+    }
+
+    @Test
+    void update_fillsTheCacheOnlyOnceTheWriteCommits() {
+        Item item = new Item(1L, "Renamed", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+        when(itemStore.replace(1L, item, null)).thenReturn(Optional.of(item));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemService.update(1L, item, null);
+            // still uncommitted, a rollback would leave nothing behind in the cache
+            assertTrue(itemCache.getIfPresent(1L).isEmpty());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertEquals("Renamed", itemCache.getIfPresent(1L).orElseThrow().getName());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void patch_fillsTheCacheOnlyOnceTheWriteCommits() {
+        Item item = new Item(1L, "Patched", "Description 1", ItemStatus.UNPROCESSED, "email@email.com");
+        when(itemStore.update(eq(1L), isNull(), any())).thenReturn(Optional.of(item));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemService.patch(1L, Map.of(), null);
+            assertTrue(itemCache.getIfPresent(1L).isEmpty());
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertEquals("Patched", itemCache.getIfPresent(1L).orElseThrow().getName());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 }
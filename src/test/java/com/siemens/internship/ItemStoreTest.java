@@ -0,0 +1,232 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.StoreProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.InMemoryItemStore;
+import com.siemens.internship.repository.ItemQuery;
+import com.siemens.internship.repository.ItemStore;
+import com.siemens.internship.repository.OffHeapItemStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// contract of the stores that keep items themselves; the JPA store is covered by the Spring Boot tests
+public class ItemStoreTest {
+    enum Kind {MEMORY, OFFHEAP}
+
+    @TempDir
+    Path dir;
+
+    private final List<AutoCloseable> opened = new ArrayList<>();
+
+    @AfterEach
+    void close() throws Exception {
+        for (AutoCloseable store : opened) {
+            store.close();
+        }
+    }
+
+    private ItemStore open(Kind kind) {
+        StoreProperties properties = new StoreProperties();
+        properties.setStripes(4);
+        properties.getOffheap().setPath(dir.resolve("items.store").toString());
+        // tiny segments, so a few items already span several of them
+        properties.getOffheap().setSegmentSize(DataSize.ofBytes(4096));
+        if (kind == Kind.MEMORY) {
+            return new InMemoryItemStore(properties);
+        }
+        OffHeapItemStore store = new OffHeapItemStore(properties);
+        opened.add(store);
+        return store;
+    }
+
+    private static Item item(String name, ItemStatus status) {
+        return new Item(null, name, "Description", status, "email@email.com");
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    void writes_bumpVersionsAndDetectConflicts(Kind kind) {
+        ItemStore store = open(kind);
+        Item saved = store.save(item("Item 1", ItemStatus.UNPROCESSED));
+        assertThat(saved.getId()).isEqualTo(1L);
+        assertThat(saved.getVersion()).isZero();
+
+        Item replaced = store.replace(saved.getId(), item("Renamed", ItemStatus.PROCESSED), 0L).orElseThrow();
+        assertThat(replaced.getVersion()).isEqualTo(1L);
+        assertThat(store.findById(saved.getId())).contains(replaced);
+
+        // a stale version is rejected and leaves the item unchanged
+        assertThatThrownBy(() -> store.update(saved.getId(), 0L, it -> it.setName("Lost")))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        // so does an exception thrown by the change itself
+        assertThatThrownBy(() -> store.update(saved.getId(), null, it -> {
+            it.setName("Half");
+            throw new IllegalArgumentException("invalid");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.findById(saved.getId()).orElseThrow().getName()).isEqualTo("Renamed");
+
+        // unknown ids are reported as absent, a null field round-trips
+        assertThat(store.replace(99L, item("Other", null), null)).isEmpty();
+        Item cleared = store.update(saved.getId(), null, it -> it.setEmail(null)).orElseThrow();
+        assertThat(store.findById(saved.getId())).contains(cleared);
+        assertThat(cleared.getEmail()).isNull();
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    void scans_skipDeletedIdsAndCountByStatus(Kind kind) {
+        ItemStore store = open(kind);
+        List<Item> inserted = store.insertAll(List.of(
+                item("Item 1", ItemStatus.UNPROCESSED), item("Item 2", ItemStatus.PROCESSED),
+                item("Item 3", ItemStatus.UNPROCESSED), item("Item 4", ItemStatus.UNPROCESSED),
+                item("Item 5", ItemStatus.UNPROCESSED), item("Item 6", ItemStatus.UNPROCESSED)));
+        assertThat(inserted).extracting(Item::getId).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+        assertThat(store.deleteAll(List.of(3L, 42L))).containsExactly(3L);
+
+        assertThat(store.findPage(0L, 3)).extracting(Item::getId).containsExactly(1L, 2L, 4L);
+        assertThat(store.findPage(4L, 10)).extracting(Item::getId).containsExactly(5L, 6L);
+        assertThat(store.findIdsByStatusAfter(ItemStatus.UNPROCESSED, 1L, 2)).containsExactly(4L, 5L);
+        assertThat(store.countByStatus(ItemStatus.UNPROCESSED)).isEqualTo(4);
+
+        assertThat(store.updateStatus(List.of(1L, 2L, 3L, 4L), ItemStatus.UNPROCESSED, ItemStatus.PROCESSED)).containsExactlyInAnyOrder(1L, 4L);
+        assertThat(store.updateStatus(List.of(1L, 5L), null, ItemStatus.PROCESSED)).containsExactly(5L);
+        assertThat(store.countByStatus(ItemStatus.UNPROCESSED)).isEqualTo(1);
+        assertThat(store.countByStatus(ItemStatus.PROCESSED)).isEqualTo(4);
+        assertThat(store.findById(1L).orElseThrow().getVersion()).isEqualTo(1L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    void search_filtersAndPagesByKeyset(Kind kind) {
+        ItemStore store = open(kind);
+        store.insertAll(List.of(
+                new Item(null, "Pear", "Description", ItemStatus.UNPROCESSED, "a@Example.com"),
+                new Item(null, "Apple", "Description", ItemStatus.PROCESSED, "b@example.com"),
+                new Item(null, "Apricot", "Description", ItemStatus.UNPROCESSED, "c@other.org"),
+                new Item(null, "Apple", "Description", ItemStatus.UNPROCESSED, "d@example.com"),
+                new Item(null, null, "Description", ItemStatus.UNPROCESSED, "e@example.com")));
+
+        assertThat(store.search(new ItemQuery(ItemStatus.UNPROCESSED, null, "example.com", null, ItemQuery.Order.ID, null, 0L, 10)))
+                .extracting(Item::getId).containsExactly(1L, 4L, 5L);
+        assertThat(store.search(new ItemQuery(null, "c@other.org", null, null, null, null, 0L, 10)))
+                .extracting(Item::getId).containsExactly(3L);
+
+        // name order with ties broken by id, the second page starts after the last (name, id) of the first
+        List<Item> first = store.search(new ItemQuery(null, null, null, "Ap", ItemQuery.Order.NAME, null, 0L, 2));
+        assertThat(first).extracting(Item::getId).containsExactly(2L, 4L);
+        Item last = first.get(1);
+        assertThat(store.search(new ItemQuery(null, null, null, "Ap", ItemQuery.Order.NAME, last.getName(), last.getId(), 2)))
+                .extracting(Item::getName).containsExactly("Apricot");
+        // items without a name have no place in the name order
+        assertThat(store.search(new ItemQuery(null, null, null, null, ItemQuery.Order.NAME, null, 0L, 10))).hasSize(4);
+    }
+
+    // random inserts and deletes against a plain HashMap, enough to exercise rehashing and backward-shift removal
+    @ParameterizedTest
+    @EnumSource(Kind.class)
+    void randomWorkload_matchesAReferenceMap(Kind kind) {
+        ItemStore store = open(kind);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                Item saved = store.save(item("Item " + i, ItemStatus.UNPROCESSED));
+                expected.put(saved.getId(), saved.getName());
+            } else {
+                long id = 1 + random.nextInt(i + 1);
+                store.deleteById(id);
+                expected.remove(id);
+            }
+        }
+        Map<Long, String> actual = new HashMap<>();
+        store.forEach(0L, it -> actual.put(it.getId(), it.getName()));
+        assertThat(actual).isEqualTo(expected);
+        assertThat(store.countByStatus(ItemStatus.UNPROCESSED)).isEqualTo(expected.size());
+    }
+
+    @Test
+    void offHeap_survivesRestartWithoutReplay() throws Exception {
+        OffHeapItemStore first = (OffHeapItemStore) open(Kind.OFFHEAP);
+        for (int i = 0; i < 100; i++) {
+            first.save(item("Item " + i, i % 2 == 0 ? ItemStatus.UNPROCESSED : ItemStatus.PROCESSED));
+        }
+        first.deleteById(10L);
+        first.close();
+        opened.remove(first);
+
+        // after a clean shutdown the records are not read at all, a byte changed meanwhile goes unnoticed
+        try (FileChannel file = FileChannel.open(dir.resolve("items.store"), StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[]{'X'}), 4096 + 15);
+        }
+
+        ItemStore reopened = open(Kind.OFFHEAP);
+        // id 10 held "Item 9", a PROCESSED one
+        assertThat(reopened.countByStatus(ItemStatus.UNPROCESSED)).isEqualTo(50);
+        assertThat(reopened.countByStatus(ItemStatus.PROCESSED)).isEqualTo(49);
+        assertThat(reopened.findById(1L).orElseThrow().getName()).isEqualTo("Xtem 0");
+        assertThat(reopened.findById(10L)).isEmpty();
+        assertThat(reopened.findAll()).hasSize(99);
+        assertThat(reopened.findById(100L).orElseThrow().getName()).isEqualTo("Item 99");
+        // ids continue after the last one handed out before the restart
+        assertThat(reopened.save(item("Item 100", ItemStatus.UNPROCESSED)).getId()).isEqualTo(101L);
+    }
+
+    @Test
+    void offHeap_fallsBackToThePreviousVersionOfAWriteTornByACrash() throws Exception {
+        // the store is never closed, as in a crash; what it wrote is in the file
+        OffHeapItemStore crashed = (OffHeapItemStore) open(Kind.OFFHEAP);
+        crashed.save(item("Item 1", ItemStatus.UNPROCESSED));
+        crashed.update(1L, null, it -> it.setName("Renamed"));
+        crashed.save(item("Item 2", ItemStatus.UNPROCESSED));
+        crashed.save(item("Item 3", ItemStatus.UNPROCESSED));
+        crashed.deleteById(3L);
+        crashed.sync();
+
+        // the update of item 1 went to its second slot and the insert of item 2 to its first, both cut short
+        int slot = 280;
+        try (FileChannel file = FileChannel.open(dir.resolve("items.store"), StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[]{'X'}), 4096 + slot + 20);
+            file.write(ByteBuffer.wrap(new byte[]{'X'}), 4096 + 2 * slot + 20);
+        }
+
+        ItemStore recovered = open(Kind.OFFHEAP);
+        Item first = recovered.findById(1L).orElseThrow();
+        assertThat(first.getName()).isEqualTo("Item 1");
+        assertThat(first.getVersion()).isZero();
+        assertThat(recovered.findById(2L)).isEmpty();
+        assertThat(recovered.findById(3L)).isEmpty();
+        assertThat(recovered.findAll()).extracting(Item::getId).containsExactly(1L);
+        assertThat(recovered.countByStatus(ItemStatus.UNPROCESSED)).isEqualTo(1);
+        // the torn slot is written over by the next update
+        assertThat(recovered.update(1L, 0L, it -> it.setName("Again")).orElseThrow().getVersion()).isEqualTo(1L);
+        assertThat(recovered.save(item("Item 4", ItemStatus.UNPROCESSED)).getId()).isEqualTo(4L);
+    }
+
+    @Test
+    void offHeap_rejectsFieldsLargerThanTheRecord() {
+        ItemStore store = open(Kind.OFFHEAP);
+        assertThatThrownBy(() -> store.save(item("x".repeat(65), ItemStatus.UNPROCESSED)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(store.findAll()).isEmpty();
+    }
+}
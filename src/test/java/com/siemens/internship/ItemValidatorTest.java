@@ -0,0 +1,66 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.service.ItemValidator;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemValidatorTest {
+    private static ValidatorFactory factory;
+    private static Validator hibernate;
+    private static ItemValidator fast;
+
+    @BeforeAll
+    static void setup() {
+        factory = Validation.buildDefaultValidatorFactory();
+        hibernate = factory.getValidator();
+        fast = new ItemValidator(hibernate);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        factory.close();
+    }
+
+    // the fast path must accept and reject exactly what the @Pattern regexes do, with the same messages
+    @Test
+    void validateItem_matchesHibernateValidator() {
+        List<String> samples = new ArrayList<>(List.of(
+                "", "ab", "abc", "Item 1", "Item_1 ", "Item-1", "Ünïcode", "a".repeat(50), "a".repeat(51), "abc\n",
+                "email@email.com", "a@b.co", "a@b.c", "a@b.abcdefg", "@b.com", "a@.com", "a@b..com", "a@b.c1m",
+                "a.b%c+d-e@sub.domain-x.org", "a@b@c.com", "a b@c.com", "a@b_c.com", "a@com", "a@b.com.", "user@host.museum"));
+        Random random = new Random(42);
+        String alphabet = "aZ09_ .@%+-!é";
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder value = new StringBuilder();
+            for (int j = random.nextInt(12); j > 0; j--) {
+                value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            samples.add(value.toString());
+        }
+
+        for (String value : samples) {
+            Item item = new Item(1L, value, value, ItemStatus.UNPROCESSED, value);
+            List<String> expected = hibernate.validate(item).stream()
+                    .map(it -> it.getPropertyPath() + " " + it.getMessage())
+                    .toList();
+            assertThat(fast.validateItem(item)).as(value).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void validateItem_nullFieldsAreValid() {
+        assertThat(fast.validateItem(new Item(null, null, null, null, null))).isEmpty();
+    }
+}
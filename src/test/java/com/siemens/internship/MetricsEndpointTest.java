@@ -0,0 +1,47 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// metrics exporters are disabled in tests by default, AutoConfigureObservability turns Prometheus back on
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class MetricsEndpointTest {
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void prometheusEndpoint_exposesApplicationMetrics() {
+        Item created = restTemplate.postForObject("/api/items",
+                new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"), Item.class);
+        restTemplate.getForEntity("/api/items/" + created.getId(), Item.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                // per-endpoint latency histogram
+                .contains("http_server_requests_seconds_bucket")
+                .contains("uri=\"/api/items/{id}\"")
+                // per-method service timers
+                .contains("item_service_seconds_count{method=\"findById\",outcome=\"success\"")
+                .contains("item_service_seconds_count{method=\"save\",outcome=\"success\"")
+                // processing pipeline and executors
+                .contains("item_processing_items_total")
+                .contains("item_processing_item_seconds_count")
+                .contains("executor_active_threads{name=\"taskExecutor\"")
+                .contains("executor_rejected_total{name=\"processingExecutor\"")
+                // per-query database time
+                .contains("spring_data_repository_invocations_seconds")
+                .contains("item_db_query_seconds_count{query=\"changeLog.insert\"");
+    }
+}
@@ -0,0 +1,60 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.SearchProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.service.NamePrefixIndex;
+import com.siemens.internship.service.NamePrefixIndex.ItemName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NamePrefixIndexTest {
+    private static NamePrefixIndex index(boolean enabled) {
+        SearchProperties properties = new SearchProperties();
+        properties.getNameIndex().setEnabled(enabled);
+        return new NamePrefixIndex(properties);
+    }
+
+    private static Item item(long id, String name) {
+        return new Item(id, name, "Description", ItemStatus.UNPROCESSED, "email@email.com");
+    }
+
+    @Test
+    void find_returnsPrefixMatchesInNameOrder() {
+        NamePrefixIndex index = index(true);
+        index.put(item(3L, "Apricot"));
+        index.put(item(1L, "Apple"));
+        index.put(item(2L, "Apple"));
+        index.put(item(4L, "Banana"));
+
+        assertThat(index.find("Ap", 10)).containsExactly(new ItemName(1L, "Apple"), new ItemName(2L, "Apple"), new ItemName(3L, "Apricot"));
+        assertThat(index.find("Ap", 1)).containsExactly(new ItemName(1L, "Apple"));
+        assertThat(index.find("C", 10)).isEmpty();
+    }
+
+    @Test
+    void renamesAndDeletes_replaceTheOldEntry() {
+        NamePrefixIndex index = index(true);
+        index.put(item(1L, "Apple"));
+        index.put(item(1L, "Cherry"));
+        index.put(item(2L, "Apple"));
+        index.remove(2L);
+        index.put(item(3L, null));
+
+        assertThat(index.find("Apple", 10)).isEmpty();
+        assertThat(index.find("Ch", 10)).containsExactly(new ItemName(1L, "Cherry"));
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void disabled_keepsNothing() {
+        NamePrefixIndex index = index(false);
+        index.put(item(1L, "Apple"));
+
+        assertThat(index.find("A", 10)).isEqualTo(List.of());
+        assertThat(index.isEnabled()).isFalse();
+    }
+}
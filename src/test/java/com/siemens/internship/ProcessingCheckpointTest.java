@@ -0,0 +1,159 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingCheckpoint;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingCheckpointRepository;
+import com.siemens.internship.repository.ProcessingFailureRepository;
+import com.siemens.internship.service.ItemBatchProcessor;
+import com.siemens.internship.service.ProcessingCheckpoints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// same settings as ItemBatchProcessorTest, so the context is shared
+@SpringBootTest(properties = {"items.processing.chunk-size=3", "items.processing.parallelism=2"})
+public class ProcessingCheckpointTest {
+    @Autowired
+    private ProcessingCheckpoints checkpoints;
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ProcessingCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ProcessingFailureRepository failureRepository;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        for (int i = 0; i < 10; i++) {
+            ids.add(itemRepository.save(new Item(null, "Item " + i, "Description", ItemStatus.UNPROCESSED, "email@email.com")).getId());
+        }
+    }
+
+    // interrupted checkpoints would make runs of other tests resume
+    @AfterEach
+    void cleanup() {
+        itemRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        failureRepository.deleteAll();
+    }
+
+    @Test
+    void restartedRun_resumesFromTheCheckpointOfTheCrashedOne() throws InterruptedException {
+        // the first run dies after two chunks without recording its end
+        ProcessingCheckpoints.Run crashed = checkpoints.begin("crashed");
+        AtomicInteger chunks = new AtomicInteger();
+        batchProcessor.process(batchProcessor.unprocessed(), crashed.resumeAfter(), crashed.track(new ItemBatchProcessor.ChunkListener() {
+            @Override
+            public void onChunkStarted(List<Long> started) {
+                chunks.incrementAndGet();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return chunks.get() >= 2;
+            }
+        }));
+        assertThat(itemRepository.countByStatus(ItemStatus.UNPROCESSED)).isEqualTo(4);
+
+        // after the restart the next run starts behind the six committed items
+        ReflectionTestUtils.invokeMethod(checkpoints, "markInterrupted");
+        ProcessingCheckpoints.Run resumed = checkpoints.begin("resumed");
+        assertThat(resumed.resumeAfter()).isEqualTo(ids.get(5));
+
+        List<Long> scanned = new ArrayList<>();
+        ItemBatchProcessor.BatchResult result = batchProcessor.process(batchProcessor.unprocessed(), resumed.resumeAfter(),
+                resumed.track(new ItemBatchProcessor.ChunkListener() {
+                    @Override
+                    public void onChunkStarted(List<Long> started) {
+                        scanned.addAll(started);
+                    }
+                }));
+        resumed.finish(true);
+
+        assertThat(scanned).containsExactlyElementsOf(ids.subList(6, 10));
+        assertThat(result.processed()).isEqualTo(4);
+        assertThat(itemRepository.findAll()).allMatch(item -> item.getStatus() == ItemStatus.PROCESSED)
+                .allMatch(item -> item.getVersion() == 1);
+        assertThat(checkpointRepository.findById("crashed").orElseThrow().getState()).isEqualTo(ProcessingCheckpoint.State.RESUMED);
+        assertThat(checkpointRepository.findById("resumed").orElseThrow().getState()).isEqualTo(ProcessingCheckpoint.State.COMPLETED);
+        // a completed run is not resumed
+        assertThat(checkpoints.begin("next").resumeAfter()).isZero();
+    }
+
+    @Test
+    void runOfASilentNode_isResumedByTheNextRun() {
+        // a node with a drawn id crashed mid-run, no restart of it will ever mark the run interrupted
+        Instant lastBeat = Instant.now().minus(Duration.ofMinutes(5));
+        checkpointRepository.save(new ProcessingCheckpoint("lost", ProcessingCheckpoint.State.RUNNING, ids.get(3), 4L, 0L,
+                lastBeat, lastBeat, "gone-node"));
+        // one that is still beating is left alone
+        checkpointRepository.save(new ProcessingCheckpoint("alive", ProcessingCheckpoint.State.RUNNING, ids.get(1), 2L, 0L,
+                lastBeat, Instant.now(), "other-node"));
+
+        assertThat(checkpoints.begin("next").resumeAfter()).isEqualTo(ids.get(3));
+        assertThat(checkpointRepository.findById("lost").orElseThrow().getState()).isEqualTo(ProcessingCheckpoint.State.RESUMED);
+        assertThat(checkpointRepository.findById("alive").orElseThrow().getState()).isEqualTo(ProcessingCheckpoint.State.RUNNING);
+    }
+
+    @Test
+    void checkpoint_neverPassesAChunkStillInFlight() {
+        ProcessingCheckpoints.Run run = checkpoints.begin("run");
+        ItemBatchProcessor.ChunkListener listener = run.track(new ItemBatchProcessor.ChunkListener() {
+        });
+        listener.onChunkStarted(ids.subList(0, 3));
+        listener.onChunkStarted(ids.subList(3, 6));
+
+        // the later chunk commits first, the checkpoint has to stay below the earlier one
+        listener.onChunkCommitted(ids.subList(3, 6), 3);
+        assertThat(checkpointRepository.findById("run").orElseThrow().getResumeAfter()).isEqualTo(ids.get(0) - 1);
+        listener.onChunkCommitted(ids.subList(0, 3), 3);
+        assertThat(checkpointRepository.findById("run").orElseThrow().getResumeAfter()).isEqualTo(ids.get(5));
+    }
+
+    @Test
+    void failedItems_areRetriedWithoutAScan() throws InterruptedException {
+        ProcessingCheckpoints.Run run = checkpoints.begin("run");
+        ItemBatchProcessor.ChunkListener listener = run.track(new ItemBatchProcessor.ChunkListener() {
+        });
+        listener.onChunkStarted(ids.subList(0, 3));
+        listener.onChunkFailed(ids.subList(0, 2), new IllegalStateException("boom"));
+        listener.onChunkCommitted(ids.subList(2, 3), 0);
+        assertThat(checkpointRepository.findById("run").orElseThrow().getResumeAfter()).isEqualTo(ids.get(2));
+        assertThat(failureRepository.count()).isEqualTo(2);
+
+        List<Long> retried = new ArrayList<>();
+        ItemBatchProcessor.BatchResult result = batchProcessor.process(checkpoints.failedItems(), 0L,
+                checkpoints.retrying("retry", new ItemBatchProcessor.ChunkListener() {
+                    @Override
+                    public void onChunkStarted(List<Long> started) {
+                        retried.addAll(started);
+                    }
+                }));
+
+        assertThat(retried).containsExactlyElementsOf(ids.subList(0, 2));
+        assertThat(result.processed()).isEqualTo(2);
+        assertThat(failureRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,191 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingLease;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ProcessingLeaseRepository;
+import com.siemens.internship.service.ItemBatchProcessor;
+import com.siemens.internship.service.ProcessingLeases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// same settings as ItemBatchProcessorTest, so the context is shared; ranges are shrunk to a few ids per test
+@SpringBootTest(properties = {"items.processing.chunk-size=3", "items.processing.parallelism=2"})
+public class ProcessingLeaseTest {
+    private static final long RANGE_SIZE = 4;
+
+    @Autowired
+    private ProcessingLeases leases;
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ProcessingLeaseRepository leaseRepository;
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProcessingProperties.Leasing defaults;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        cleanup();
+        defaults = properties.getLeasing();
+        ProcessingProperties.Leasing leasing = new ProcessingProperties.Leasing();
+        leasing.setRangeSize(RANGE_SIZE);
+        leasing.setTtl(Duration.ofSeconds(5));
+        leasing.setHeartbeatInterval(Duration.ofMillis(50));
+        properties.setLeasing(leasing);
+        for (int i = 0; i < 20; i++) {
+            ids.add(itemRepository.save(new Item(null, "Item " + i, "Description", ItemStatus.UNPROCESSED, "email@email.com")).getId());
+        }
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (defaults != null) {
+            properties.setLeasing(defaults);
+        }
+        itemRepository.deleteAll();
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    void twoNodes_processEveryItemExactlyOnce() {
+        // a second node: same database, own name
+        ProcessingLeases other = new ProcessingLeases();
+        ReflectionTestUtils.setField(other, "leaseRepository", leaseRepository);
+        ReflectionTestUtils.setField(other, "batchProcessor", batchProcessor);
+        ReflectionTestUtils.setField(other, "properties", properties);
+        ReflectionTestUtils.setField(other, "nodeId", "other-node");
+
+        Queue<Long> startedHere = new ConcurrentLinkedQueue<>();
+        Queue<Long> startedThere = new ConcurrentLinkedQueue<>();
+        CompletableFuture<ItemBatchProcessor.BatchResult> here = CompletableFuture.supplyAsync(() -> run(leases, startedHere));
+        CompletableFuture<ItemBatchProcessor.BatchResult> there = CompletableFuture.supplyAsync(() -> run(other, startedThere));
+
+        assertThat(here.join().processed() + there.join().processed()).isEqualTo(20);
+        Set<Long> both = new HashSet<>(startedHere);
+        both.retainAll(startedThere);
+        assertThat(both).isEmpty();
+        assertThat(itemRepository.findAll()).allMatch(item -> item.getStatus() == ItemStatus.PROCESSED)
+                .allMatch(item -> item.getVersion() == 1);
+        assertThat(leaseRepository.findAll()).isNotEmpty().allMatch(lease -> lease.getNodeId() == null && lease.getCompletedAt() != null);
+    }
+
+    @Test
+    void expiredLease_isTakenOverAfterTheRest() throws InterruptedException {
+        // the range of the first items is held by a node that stopped renewing its lease
+        long start = Math.floorDiv(ids.get(0) - 1, RANGE_SIZE) * RANGE_SIZE;
+        leaseRepository.insert(ProcessingLease.Scope.UNPROCESSED.name(), start);
+        leaseRepository.claim(ProcessingLease.Scope.UNPROCESSED, start, "dead-node", Duration.ofMillis(300).toNanos(),
+                leaseRepository.currentInstant());
+
+        List<Long> started = new ArrayList<>();
+        List<Long> skipped = new ArrayList<>();
+        ItemBatchProcessor.BatchResult result = leases.process(ProcessingLease.Scope.UNPROCESSED, batchProcessor.unprocessed(), 0L,
+                new ItemBatchProcessor.ChunkListener() {
+                    @Override
+                    public void onChunkStarted(List<Long> chunk) {
+                        started.addAll(chunk);
+                    }
+
+                    @Override
+                    public void onRangeSkipped(long afterId, long lastId) {
+                        skipped.add(lastId);
+                    }
+                });
+
+        List<Long> ofDeadNode = ids.stream().filter(id -> id <= start + RANGE_SIZE).toList();
+        assertThat(result.processed()).isEqualTo(20);
+        assertThat(skipped).containsExactly(start + RANGE_SIZE);
+        assertThat(started.subList(started.size() - ofDeadNode.size(), started.size())).containsExactlyElementsOf(ofDeadNode);
+        assertThat(itemRepository.countByStatus(ItemStatus.UNPROCESSED)).isZero();
+    }
+
+    @Test
+    void run_waitsOnlyForTheRangesItSkipped() throws Exception {
+        // another node keeps a range of the scope busy that this run never had work in
+        long busy = Math.floorDiv(ids.get(ids.size() - 1) - 1, RANGE_SIZE) * RANGE_SIZE + 10 * RANGE_SIZE;
+        lease(busy, "busy-node");
+
+        CompletableFuture<ItemBatchProcessor.BatchResult> run = CompletableFuture.supplyAsync(() -> run(leases, new ConcurrentLinkedQueue<>()));
+
+        assertThat(run.get(5, TimeUnit.SECONDS).processed()).isEqualTo(20);
+        assertThat(leaseRepository.findById(new ProcessingLease.Key(ProcessingLease.Scope.UNPROCESSED, busy)).orElseThrow().getNodeId())
+                .isEqualTo("busy-node");
+    }
+
+    @Test
+    void purge_deletesIdleRowsAndLongExpiredLeases() {
+        // completed, released and held by a node that died, all two hours ago
+        lease(0, "done-node");
+        leaseRepository.complete(ProcessingLease.Scope.UNPROCESSED, 0, "done-node");
+        lease(4, "gone-node");
+        leaseRepository.release(ProcessingLease.Scope.UNPROCESSED, 4, "gone-node");
+        lease(8, "dead-node");
+        jdbcTemplate.update("UPDATE processing_lease SET claimed_at = claimed_at - INTERVAL '2' HOUR, "
+                + "expires_at = expires_at - INTERVAL '2' HOUR, completed_at = completed_at - INTERVAL '2' HOUR");
+        // recently completed, held and not claimed yet
+        lease(12, "done-node");
+        leaseRepository.complete(ProcessingLease.Scope.UNPROCESSED, 12, "done-node");
+        lease(16, "live-node");
+        leaseRepository.insert(ProcessingLease.Scope.UNPROCESSED.name(), 20);
+
+        properties.getLeasing().setRetention(Duration.ofHours(1));
+        ReflectionTestUtils.invokeMethod(leases, "purge");
+
+        assertThat(leaseRepository.findAll()).extracting(ProcessingLease::getRangeStart).containsExactlyInAnyOrder(12L, 16L, 20L);
+    }
+
+    @Test
+    void defaultNodeId_isTheHostNamePlusADrawnId() {
+        assertThat(leases.nodeId()).matches(".+-[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}").hasSizeLessThanOrEqualTo(64);
+    }
+
+    private void lease(long start, String nodeId) {
+        leaseRepository.insert(ProcessingLease.Scope.UNPROCESSED.name(), start);
+        leaseRepository.claim(ProcessingLease.Scope.UNPROCESSED, start, nodeId, Duration.ofSeconds(30).toNanos(),
+                leaseRepository.currentInstant());
+    }
+
+    private ItemBatchProcessor.BatchResult run(ProcessingLeases node, Queue<Long> started) {
+        try {
+            return node.process(ProcessingLease.Scope.UNPROCESSED, batchProcessor.unprocessed(), 0L, new ItemBatchProcessor.ChunkListener() {
+                @Override
+                public void onChunkStarted(List<Long> chunk) {
+                    started.addAll(chunk);
+                }
+            });
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.model.ProcessingFailure;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.repository.ItemStore;
+import com.siemens.internship.repository.ProcessingFailureRepository;
+import com.siemens.internship.service.ItemBatchProcessor;
+import com.siemens.internship.service.ItemProcessor;
+import com.siemens.internship.service.ProcessingCheckpoints;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// two stages with their own concurrency, the second admits one chunk at a time; the background scheduler
+// exists but stays paused unless a test turns it on
+@SpringBootTest(properties = {
+        "items.processing.chunk-size=3",
+        "items.processing.stages.enrich.concurrency=3",
+        "items.processing.stages.check.concurrency=1",
+        "items.processing.schedule.enabled=true",
+        "items.processing.schedule.interval=20ms"})
+public class ProcessingPipelineTest {
+    // attempts the check stage made on "Bad" items
+    private static final AtomicInteger BAD_ATTEMPTS = new AtomicInteger();
+
+    @TestConfiguration
+    static class Stages {
+        @Bean
+        @Order(1)
+        ItemProcessor enrich() {
+            return new ItemProcessor() {
+                @Override
+                public String name() {
+                    return "enrich";
+                }
+
+                @Override
+                public void process(Item item) {
+                    item.setDescription(item.getDescription() + " enriched");
+                }
+            };
+        }
+
+        // fails "Bad" items and, for "Raced" items, plays a client that changes the item meanwhile
+        @Bean
+        @Order(2)
+        ItemProcessor check(@Lazy ItemStore itemStore) {
+            return new ItemProcessor() {
+                @Override
+                public String name() {
+                    return "check";
+                }
+
+                @Override
+                public void process(Item item) {
+                    if (item.getName().equals("Bad")) {
+                        BAD_ATTEMPTS.incrementAndGet();
+                        throw new IllegalStateException("rejected");
+                    }
+                    if (item.getName().equals("Raced")) {
+                        itemStore.update(item.getId(), null, it -> it.setName("Renamed"));
+                    }
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProcessingCheckpoints checkpoints;
+
+    @Autowired
+    private ProcessingFailureRepository failureRepository;
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    @BeforeEach
+    void setup() {
+        properties.setSchedule(schedule(false));
+        itemRepository.deleteAll();
+        failureRepository.deleteAll();
+    }
+
+    @Test
+    void processAll_runsEveryStageAndPersistsInBatches() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            itemRepository.save(new Item(null, "Item " + i, "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+        Item bad = itemRepository.save(new Item(null, "Bad", "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        Item raced = itemRepository.save(new Item(null, "Raced", "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+
+        ConcurrentLinkedQueue<Long> failed = new ConcurrentLinkedQueue<>();
+        ItemBatchProcessor.BatchResult result = batchProcessor.processAll(new ItemBatchProcessor.ChunkListener() {
+            @Override
+            public void onChunkFailed(List<Long> ids, RuntimeException e) {
+                failed.addAll(ids);
+            }
+        });
+
+        assertThat(result.processed()).isEqualTo(10);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(failed).containsExactlyInAnyOrder(bad.getId(), raced.getId());
+        assertThat(itemRepository.findAll()).filteredOn(item -> item.getName().startsWith("Item"))
+                .hasSize(10)
+                .allMatch(item -> item.getStatus() == ItemStatus.PROCESSED && item.getDescription().equals("Description enriched"));
+
+        // a failed item is left for a retry, a concurrently changed one is not overwritten and retried too
+        assertThat(itemRepository.findById(bad.getId()).orElseThrow().getStatus()).isEqualTo(ItemStatus.UNPROCESSED);
+        Item renamed = itemRepository.findById(raced.getId()).orElseThrow();
+        assertThat(renamed.getName()).isEqualTo("Renamed");
+        assertThat(renamed.getStatus()).isEqualTo(ItemStatus.UNPROCESSED);
+
+        // every stage reports its own timings, per item and per chunk waiting for the stage
+        assertThat(meterRegistry.get("item.processing.stage").tag("stage", "enrich").timer().count()).isEqualTo(12);
+        assertThat(meterRegistry.get("item.processing.stage").tag("stage", "check").timer().count()).isEqualTo(12);
+        assertThat(meterRegistry.get("item.processing.stage.wait").tag("stage", "persist").timer().count()).isEqualTo(4);
+    }
+
+    @Test
+    void retry_settlesFailuresOfItemsThatWereProcessedOrDeletedMeanwhile() throws InterruptedException {
+        Item pending = itemRepository.save(new Item(null, "Item 1", "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        Item processed = itemRepository.save(new Item(null, "Item 2", "Description", ItemStatus.PROCESSED, "email@email.com"));
+        Item deleted = itemRepository.save(new Item(null, "Item 3", "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        itemRepository.deleteById(deleted.getId());
+        failureRepository.saveAll(List.of(pending, processed, deleted).stream()
+                .map(item -> new ProcessingFailure(item.getId(), "earlier", "rejected", Instant.now()))
+                .toList());
+
+        // the pipeline only runs the item still UNPROCESSED, the other two are settled without it
+        ItemBatchProcessor.BatchResult result = batchProcessor.process(checkpoints.failedItems(), 0L,
+                checkpoints.retrying("retry", new ItemBatchProcessor.ChunkListener() {
+                }));
+
+        assertThat(result.processed()).isEqualTo(1);
+        assertThat(itemRepository.findById(pending.getId()).orElseThrow().getStatus()).isEqualTo(ItemStatus.PROCESSED);
+        assertThat(checkpoints.countFailed()).isZero();
+    }
+
+    @Test
+    void schedule_triesAPoisonChunkOnceAndMovesPastIt() throws InterruptedException {
+        Item bad = itemRepository.save(new Item(null, "Bad", "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        for (int i = 0; i < 8; i++) {
+            itemRepository.save(new Item(null, "Item " + i, "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+        BAD_ATTEMPTS.set(0);
+        properties.setSchedule(schedule(true));
+        try {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (itemRepository.countByStatus(ItemStatus.UNPROCESSED) > 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            // passes keep starting over while the poison item stays UNPROCESSED
+            Thread.sleep(300);
+        } finally {
+            properties.setSchedule(schedule(false));
+            Thread.sleep(100);
+        }
+
+        assertThat(itemRepository.countByStatus(ItemStatus.PROCESSED)).isEqualTo(8);
+        // failed once, then left to retry runs instead of holding up every tick
+        assertThat(BAD_ATTEMPTS).hasValue(1);
+        assertThat(failureRepository.findAll()).extracting(ProcessingFailure::getItemId).containsExactly(bad.getId());
+        assertThat(itemRepository.findById(bad.getId()).orElseThrow().getStatus()).isEqualTo(ItemStatus.UNPROCESSED);
+    }
+
+    private static ProcessingProperties.Schedule schedule(boolean enabled) {
+        ProcessingProperties.Schedule schedule = new ProcessingProperties.Schedule();
+        schedule.setEnabled(enabled);
+        schedule.setInterval(Duration.ofMillis(20));
+        return schedule;
+    }
+}
@@ -0,0 +1,89 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import com.siemens.internship.service.ProcessingScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the scheduler bean only exists when enabled at startup; it is paused between tests through the runtime flag
+@SpringBootTest(properties = {"items.processing.chunk-size=3", "items.processing.parallelism=2",
+        "items.processing.schedule.enabled=true", "items.processing.schedule.interval=20ms"})
+public class ProcessingSchedulerTest {
+    @Autowired
+    private ProcessingScheduler scheduler;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ProcessingProperties properties;
+
+    @BeforeEach
+    void setup() throws InterruptedException {
+        pause();
+        for (int i = 0; i < 20; i++) {
+            itemRepository.save(new Item(null, "Item " + i, "Description", ItemStatus.UNPROCESSED, "email@email.com"));
+        }
+    }
+
+    // the in-memory database is shared with the contexts of other tests, whose items the scheduler must not touch
+    @AfterEach
+    void pause() throws InterruptedException {
+        ProcessingProperties.Schedule paused = schedule();
+        paused.setEnabled(false);
+        properties.setSchedule(paused);
+        // lets a tick that started before the scheduler was paused finish before the items go
+        Thread.sleep(100);
+        itemRepository.deleteAll();
+    }
+
+    @Test
+    void enabled_processesNewItemsAndRaisesTheLimitToParallelism() throws InterruptedException {
+        ProcessingProperties.Schedule schedule = schedule();
+        // latency is noisy this early in a JVM's life, only the queue bound can signal overload here
+        schedule.setLatencyTolerance(1000);
+        properties.setSchedule(schedule);
+
+        awaitAllProcessed();
+
+        assertThat(scheduler.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void overloaded_backsOffToTheMinimumAndStillMakesProgress() throws InterruptedException {
+        ProcessingProperties.Schedule schedule = schedule();
+        // every tick counts as overloaded
+        schedule.setMaxQueuedTasks(-1);
+        properties.setSchedule(schedule);
+
+        awaitAllProcessed();
+
+        assertThat(scheduler.getLimit()).isEqualTo(1);
+    }
+
+    private static ProcessingProperties.Schedule schedule() {
+        ProcessingProperties.Schedule schedule = new ProcessingProperties.Schedule();
+        schedule.setEnabled(true);
+        schedule.setInterval(Duration.ofMillis(20));
+        return schedule;
+    }
+
+    private void awaitAllProcessed() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (itemRepository.countByStatus(ItemStatus.UNPROCESSED) > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(itemRepository.countByStatus(ItemStatus.UNPROCESSED)).isZero();
+        assertThat(itemRepository.countByStatus(ItemStatus.PROCESSED)).isEqualTo(20);
+    }
+}
@@ -0,0 +1,100 @@
+package com.siemens.internship;
+
+import com.siemens.internship.config.ProcessingProperties;
+import com.siemens.internship.config.RateLimitInterceptor;
+import com.siemens.internship.config.RateLimitProperties;
+import com.siemens.internship.service.ProcessingJob;
+import com.siemens.internship.service.ProcessingJobRegistry;
+import com.siemens.internship.service.RateLimiter;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+    private static RateLimiter limiter(double requestsPerSecond, int burst) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getDefaults().setRequestsPerSecond(requestsPerSecond);
+        properties.getDefaults().setBurst(burst);
+        RateLimiter limiter = new RateLimiter();
+        ReflectionTestUtils.setField(limiter, "properties", properties);
+        // the sweep is not scheduled, buckets are only dropped when sweep() is called
+        ReflectionTestUtils.setField(limiter, "taskScheduler", Mockito.mock(TaskScheduler.class));
+        ReflectionTestUtils.invokeMethod(limiter, "init");
+        return limiter;
+    }
+
+    @Test
+    void burst_isAdmittedThenRefilledAtTheRate() {
+        // one token per 100s, so nothing refills while the test runs
+        RateLimiter limiter = limiter(0.01, 3);
+
+        assertThat(limiter.tryAcquire("a", "getAllItems")).isEqualTo(new RateLimiter.Decision(true, 3, 2, 100));
+        assertThat(limiter.tryAcquire("a", "getAllItems").remaining()).isEqualTo(1);
+        assertThat(limiter.tryAcquire("a", "getAllItems").remaining()).isZero();
+        RateLimiter.Decision rejected = limiter.tryAcquire("a", "getAllItems");
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.resetSeconds()).isEqualTo(100);
+
+        // buckets are per client and per endpoint
+        assertThat(limiter.tryAcquire("b", "getAllItems").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("a", "getItemById").allowed()).isTrue();
+
+        // a changed limit applies to the next request, to the existing bucket as well
+        limiter.setLimit("getAllItems", new RateLimiter.Limit(0, 1));
+        assertThat(limiter.tryAcquire("a", "getAllItems").allowed()).isTrue();
+    }
+
+    @Test
+    void client_isTheRemoteAddressUnlessAClientHeaderIsConfigured() throws Exception {
+        RateLimiter limiter = limiter(0.01, 1);
+        HandlerMethod handler = new HandlerMethod(this, RateLimiterTest.class.getDeclaredMethod("limiter", double.class, int.class));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-Client-Id", "proxy-assigned");
+
+        new RateLimitInterceptor(limiter, new RateLimitProperties().getClientHeader()).preHandle(request, new MockHttpServletResponse(), handler);
+        assertThat(request.getAttribute(RateLimitInterceptor.CLIENT_ATTRIBUTE)).isEqualTo("10.0.0.1");
+
+        // opted in behind a trusted proxy
+        new RateLimitInterceptor(limiter, "X-Client-Id").preHandle(request, new MockHttpServletResponse(), handler);
+        assertThat(request.getAttribute(RateLimitInterceptor.CLIENT_ATTRIBUTE)).isEqualTo("proxy-assigned");
+    }
+
+    @Test
+    void sweep_dropsBucketsThatAreFullAgain() throws InterruptedException {
+        RateLimiter limiter = limiter(2, 1);
+        limiter.tryAcquire("a", "getAllItems");
+        ReflectionTestUtils.invokeMethod(limiter, "sweep");
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(limiter, "buckets")).hasSize(1);
+
+        // refilled after 500ms, the bucket carries no state anymore
+        Thread.sleep(600);
+        ReflectionTestUtils.invokeMethod(limiter, "sweep");
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(limiter, "buckets")).isEmpty();
+    }
+
+    @Test
+    void jobsPerClient_areCappedAndFreedOnFinish() {
+        ProcessingJobRegistry registry = new ProcessingJobRegistry();
+        ReflectionTestUtils.setField(registry, "properties", new ProcessingProperties());
+
+        ProcessingJob first = registry.tryCreate(3, "a", 1).orElseThrow();
+        assertThat(registry.tryCreate(3, "a", 1)).isEmpty();
+        assertThat(registry.tryCreate(3, "b", 1)).isPresent();
+        // a refused owner does not hold on to a global slot
+        assertThat(registry.tryCreate(3, null, 0)).isPresent();
+        assertThat(registry.tryCreate(3, null, 0)).isEmpty();
+
+        registry.finish(first, ProcessingJob.State.COMPLETED);
+        assertThat(registry.runningOf("a")).isZero();
+        assertThat(registry.tryCreate(3, "a", 1)).isPresent();
+    }
+}
@@ -0,0 +1,26 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the migrations alone must produce the schema the entities map to: Hibernate only validates it here
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migration-test;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"})
+public class SchemaMigrationTest {
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    void migrations_matchTheEntityMapping() {
+        Item saved = itemRepository.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        assertThat(itemRepository.findById(saved.getId())).isPresent();
+    }
+}
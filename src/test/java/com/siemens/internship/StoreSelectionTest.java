@@ -0,0 +1,38 @@
+package com.siemens.internship;
+
+import com.siemens.internship.model.Item;
+import com.siemens.internship.model.ItemStatus;
+import com.siemens.internship.repository.InMemoryItemStore;
+import com.siemens.internship.repository.ItemStore;
+import com.siemens.internship.service.ItemBatchProcessor;
+import com.siemens.internship.service.ItemService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the backend is chosen by configuration only, the services run unchanged on top of it
+@SpringBootTest(properties = "items.store.type=memory")
+public class StoreSelectionTest {
+    @Autowired
+    private ItemStore itemStore;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ItemBatchProcessor batchProcessor;
+
+    @Test
+    void memoryStore_backsTheServices() throws InterruptedException {
+        assertThat(itemStore).isInstanceOf(InMemoryItemStore.class);
+
+        Item saved = itemService.save(new Item(null, "Item 1", "Description 1", ItemStatus.UNPROCESSED, "email@email.com"));
+        batchProcessor.processAll(new ItemBatchProcessor.ChunkListener() {
+        });
+
+        assertThat(itemService.findById(saved.getId())).get().extracting(Item::getStatus).isEqualTo(ItemStatus.PROCESSED);
+        assertThat(itemStore.countByStatus(ItemStatus.UNPROCESSED)).isZero();
+    }
+}